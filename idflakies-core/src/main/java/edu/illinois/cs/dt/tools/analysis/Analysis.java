@@ -1,12 +1,13 @@
 package edu.illinois.cs.dt.tools.analysis;
 
-import com.google.gson.Gson;
 import com.opencsv.CSVReader;
 import com.reedoei.eunomia.collections.ListEx;
-import com.reedoei.eunomia.io.files.FileUtil;
 import com.reedoei.eunomia.util.StandardMain;
 import edu.illinois.cs.dt.tools.detection.DetectionRound;
 import edu.illinois.cs.dt.tools.detection.DetectorUtil;
+import edu.illinois.cs.dt.tools.runner.JsonCodec;
+import edu.illinois.cs.dt.tools.runner.ResultStore;
+import edu.illinois.cs.dt.tools.runner.ResultsFormat;
 import edu.illinois.cs.dt.tools.runner.RunnerPathManager;
 import edu.illinois.cs.dt.tools.runner.data.DependentTest;
 import edu.illinois.cs.dt.tools.runner.data.DependentTestList;
@@ -34,6 +35,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
@@ -259,7 +261,7 @@ public class Analysis extends StandardMain {
 
         System.out.println("[INFO] Found passing order for: " + name);
 
-        insertTestRuns(name, path.resolve(RunnerPathManager.TEST_RUNS).resolve("results"));
+        insertTestRuns(name, path.resolve(RunnerPathManager.TEST_RUNS));
 
         insertDetectionResults(name, "original", path.resolve(PathManager.DETECTION_RESULTS));
         insertDetectionResults(name, "random", path.resolve(PathManager.DETECTION_RESULTS));
@@ -338,20 +340,34 @@ public class Analysis extends StandardMain {
         }
     }
 
-    private void insertTestRuns(final String name, final Path testRunResults) throws IOException, SQLException {
-        if (!Files.isDirectory(testRunResults)) {
+    private void insertTestRuns(final String name, final Path testRuns) throws IOException, SQLException {
+        final Path testRunResults = testRuns.resolve("results");
+
+        // Runs are saved as files in test-runs/results, or in the result store (dt.results.store=segments)
+        final ListEx<Path> paths = Files.isDirectory(testRunResults) ? listFiles(testRunResults) : new ListEx<>();
+        final ResultStore store = ResultStore.exists(testRuns) ? ResultStore.open(testRuns) : null;
+        final List<String> storedIds = store == null ? Collections.emptyList() : store.ids();
+
+        final int total = paths.size() + storedIds.size();
+        if (total == 0) {
             return;
         }
 
-        final ListEx<Path> paths = listFiles(testRunResults);
-
-        final int limit = Math.min(maxTestRuns, paths.size());
-        System.out.println("[INFO] Inserting test runs for " + name + " (" + paths.size() + " runs, saving " + limit + ")");
+        final int limit = Math.min(maxTestRuns, total);
+        System.out.println("[INFO] Inserting test runs for " + name + " (" + total + " runs, saving " + limit + ")");
 
         for (int i = 0; i < limit; i++) {
-            final Path p = paths.get(i);
-            System.out.print("\r[INFO] Inserting run " + (i + 1) + " of " + paths.size());
-            insertTestRunResult(name, new Gson().fromJson(FileUtil.readFile(p), TestRunResult.class));
+            System.out.print("\r[INFO] Inserting run " + (i + 1) + " of " + total);
+
+            if (i < paths.size()) {
+                insertTestRunResult(name, ResultsFormat.readTestRunResult(paths.get(i)));
+            } else {
+                final Optional<TestRunResult> stored = store.result(storedIds.get(i - paths.size()));
+
+                if (stored.isPresent()) {
+                    insertTestRunResult(name, stored.get());
+                }
+            }
         }
 
         System.out.println();
@@ -420,7 +436,7 @@ public class Analysis extends StandardMain {
                 final int roundNumber = roundNumber(p.getFileName().toString());
 
                 try {
-                    final DetectionRound round = new Gson().fromJson(FileUtil.readFile(p), DetectionRound.class);
+                    final DetectionRound round = JsonCodec.read(p, DetectionRound.class);
 
                     if (round != null && round.unfilteredTests() != null && round.unfilteredTests().names() != null) {
                         knownFlakyTests.addAll(round.unfilteredTests().names());
@@ -581,7 +597,7 @@ public class Analysis extends StandardMain {
             final int verificationRoundNumber = roundNumber(split[2]);
 
             try {
-                final TestRunResult testRunResult = new Gson().fromJson(FileUtil.readFile(verificationStep), TestRunResult.class);
+                final TestRunResult testRunResult = ResultsFormat.readTestRunResult(verificationStep);
 
                 sqlite.statement(SQLStatements.INSERT_VERIFICATION_ROUND)
                         .param(name)
@@ -1,16 +1,15 @@
 package edu.illinois.cs.dt.tools.detection;
 
-import com.google.gson.Gson;
 import com.reedoei.eunomia.collections.ListEx;
-import com.reedoei.eunomia.io.files.FileUtil;
 import com.reedoei.eunomia.util.StandardMain;
 import edu.illinois.cs.dt.tools.analysis.ResultDirVisitor;
 import edu.illinois.cs.dt.tools.detection.classifiers.DependentClassifier;
 import edu.illinois.cs.dt.tools.detection.classifiers.NonorderClassifier;
+import edu.illinois.cs.dt.tools.runner.JsonCodec;
 import edu.illinois.cs.dt.tools.runner.data.DependentTest;
 import edu.illinois.cs.dt.tools.runner.data.DependentTestList;
 import edu.illinois.cs.dt.tools.runner.data.TestRun;
-import edu.illinois.cs.dt.tools.utility.MD5;
+import edu.illinois.cs.dt.tools.utility.OrderFingerprint;
 import edu.illinois.cs.dt.tools.utility.PathManager;
 import edu.illinois.cs.dt.tools.utility.TestRunParser;
 import edu.illinois.cs.testrunner.data.results.Result;
@@ -18,7 +17,6 @@ import edu.illinois.cs.testrunner.data.results.TestRunResult;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.FileInputStream;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -104,7 +102,7 @@ public class DependentTestExtractor extends StandardMain {
 
     private boolean isNew(final DependentTestList dependentTestList, final DependentTest dependentTest) {
         final BiPredicate<TestRun, TestRun> pred =
-                (a, b) -> MD5.hashOrder(a.order()).equals(MD5.hashOrder(b.order()));
+                (a, b) -> OrderFingerprint.of(a.order()).equals(OrderFingerprint.of(b.order()));
 
         return dependentTestList.dts().stream()
                 .anyMatch(dt -> !pred.test(dt.intended(), dependentTest.intended()) ||
@@ -118,7 +116,7 @@ public class DependentTestExtractor extends StandardMain {
 
         if (Files.exists(outputFile)) {
             try {
-                final DependentTestList l = new Gson().fromJson(FileUtil.readFile(outputFile), DependentTestList.class);
+                final DependentTestList l = DependentTestList.fromFile(outputFile);
 
                 if (l != null) {
                     for (final DependentTest dependentTest : l.dts()) {
@@ -132,9 +130,7 @@ public class DependentTestExtractor extends StandardMain {
 
         System.out.println("[INFO] Writing dt list to (" + extracted.size() + " tests) to: " + outputFile);
 
-        try (final FileWriter writer = new FileWriter(outputFile.toFile())) {
-            new Gson().toJson(extracted, writer);
-        }
+        JsonCodec.write(outputFile, extracted);
     }
 
     public DependentTestList extract(final String subjectName, final Path path) throws IOException {
@@ -1,6 +1,6 @@
 package edu.illinois.cs.dt.tools.detection;
 
-import com.google.gson.Gson;
+import edu.illinois.cs.dt.tools.runner.JsonCodec;
 import edu.illinois.cs.dt.tools.runner.data.DependentTest;
 import edu.illinois.cs.dt.tools.runner.data.DependentTestList;
 
@@ -16,11 +16,22 @@ public class DetectionRound {
     private final DependentTestList filteredTests;
     private final double roundTime;
 
+    // Only set by the adaptive detector: which strategy generated this round's order, and how each strategy has done
+    private final String strategy;
+    private final List<StrategyYield> strategyYields;
+
     public DetectionRound(final List<String> testRunIds, final List<DependentTest> unfiltered, final List<DependentTest> filtered, final double roundTime) {
+        this(testRunIds, unfiltered, filtered, roundTime, null, null);
+    }
+
+    public DetectionRound(final List<String> testRunIds, final List<DependentTest> unfiltered, final List<DependentTest> filtered, final double roundTime,
+                          final String strategy, final List<StrategyYield> strategyYields) {
         this.testRunIds = testRunIds;
         this.unfilteredTests = new DependentTestList(unfiltered);
         this.filteredTests = new DependentTestList(filtered);
         this.roundTime = roundTime;
+        this.strategy = strategy;
+        this.strategyYields = strategyYields;
     }
 
     public List<String> testRunIds() {
@@ -39,8 +50,16 @@ public class DetectionRound {
         return filteredTests;
     }
 
+    public String strategy() {
+        return strategy;
+    }
+
+    public List<StrategyYield> strategyYields() {
+        return strategyYields;
+    }
+
     @Override
     public String toString() {
-        return new Gson().toJson(this);
+        return JsonCodec.gson().toJson(this);
     }
 }
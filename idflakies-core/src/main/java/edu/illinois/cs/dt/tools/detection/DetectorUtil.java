@@ -1,6 +1,8 @@
 package edu.illinois.cs.dt.tools.detection;
 
+import edu.illinois.cs.dt.tools.runner.OutputCapture;
 import edu.illinois.cs.dt.tools.runner.data.DependentTest;
+import edu.illinois.cs.dt.tools.runner.data.TestOrder;
 import edu.illinois.cs.dt.tools.runner.data.TestRun;
 import edu.illinois.cs.testrunner.configuration.Configuration;
 import edu.illinois.cs.dt.tools.utility.Level;
@@ -27,6 +29,9 @@ public class DetectorUtil {
 
         System.out.println("[INFO] Getting original results (" + originalOrder.size() + " tests).");
 
+        // A new module (or a new detector in the same module) starts by running the original order, which is always kept
+        OutputCapture.clearBaseline();
+
         TestRunResult origResult = null;
 
         boolean allPassing = false;
@@ -53,6 +58,8 @@ public class DetectorUtil {
             }
         }
 
+        OutputCapture.setBaseline(origResult);
+
         return origResult;
     }
 
@@ -62,32 +69,37 @@ public class DetectorUtil {
                 .allMatch(tr -> tr.result().equals(Result.PASS) || tr.result().equals(Result.SKIPPED));
     }
 
-    private static <T> List<T> before(final List<T> ts, final T t) {
-        final int i = ts.indexOf(t);
-
-        if (i != -1) {
-            return new ArrayList<>(ts.subList(0, Math.min(ts.size(), i)));
-        } else {
-            return new ArrayList<>();
-        }
-    }
-
     public static List<DependentTest> flakyTests(final TestRunResult intended,
                                                  final TestRunResult revealed,
                                                  final boolean onlyFirstFailure) {
         final List<DependentTest> result = new ArrayList<>();
+        final Map<String, TestResult> revealedResults = revealed.results();
+
+        // Only indexed once some test's results differ, so comparing runs without differences allocates nothing.
+        // Every dependent test's runs are views of these orders, instead of each keeping a copy of the tests before it
+        TestOrder intendedOrder = null;
+        TestOrder revealedOrder = null;
+        int[] intendedPositions = null;
+        int[] revealedPositions = null;
 
         for (final Map.Entry<String, TestResult> entry : intended.results().entrySet()) {
             final String testName = entry.getKey();
             final TestResult intendedResult = entry.getValue();
-            final Map<String, TestResult> revealedResults = revealed.results();
+            final TestResult revealedTestResult = revealedResults.get(testName);
 
-            if (revealedResults.containsKey(testName)) {
-                final Result revealedResult = revealedResults.get(testName).result();
+            if (revealedTestResult != null) {
+                final Result revealedResult = revealedTestResult.result();
                 if (!revealedResult.equals(intendedResult.result())) {
+                    if (intendedOrder == null) {
+                        intendedOrder = TestOrder.of(intended.testOrder());
+                        revealedOrder = TestOrder.of(revealed.testOrder());
+                        intendedPositions = intendedOrder.positions();
+                        revealedPositions = revealedOrder.positions();
+                    }
+
                     result.add(new DependentTest(testName,
-                            new TestRun(before(intended.testOrder(), testName), intendedResult.result(), intended.id()),
-                            new TestRun(before(revealed.testOrder(), testName), revealedResult, revealed.id())));
+                            new TestRun(intendedOrder.before(testName, intendedPositions), intendedResult.result(), intended.id()),
+                            new TestRun(revealedOrder.before(testName, revealedPositions), revealedResult, revealed.id())));
 
                     if (onlyFirstFailure) {
                         // Only keep the first failure, if any
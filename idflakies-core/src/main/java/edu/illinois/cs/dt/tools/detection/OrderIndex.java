@@ -0,0 +1,274 @@
+package edu.illinois.cs.dt.tools.detection;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import edu.illinois.cs.dt.tools.utility.Level;
+import edu.illinois.cs.dt.tools.utility.Logger;
+import edu.illinois.cs.dt.tools.utility.OrderFingerprint;
+import edu.illinois.cs.dt.tools.utility.PathManager;
+import edu.illinois.cs.testrunner.configuration.Configuration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Every order that has been run against a build, kept across runs of the plugin, so that later runs can skip orders
+ * that have already been tried. Each build (the code on the test classpath) has its own index, since a change to the
+ * code can change the outcome of an order.
+ *
+ * Orders are stored as 128-bit fingerprints. The index is a sorted file of fingerprints, searched with binary search
+ * through a memory-mapped buffer, plus a journal that new fingerprints are appended to as they are added. The journal
+ * is merged into the sorted file once it grows large, or when the index is opened again.
+ */
+public class OrderIndex {
+    public static final Path ORDER_INDEX = Paths.get("order-index");
+
+    private static final int FINGERPRINT_BYTES = 16;
+    private static final int MAX_JOURNAL_ENTRIES = 1 << 16;
+
+    public static boolean enabled() {
+        return Configuration.config().getProperty("dt.detector.order.index", false);
+    }
+
+    /**
+     * Opens the index for the build on the classpath: the contents of the class files in directories on the classpath,
+     * and the names, sizes and last-modified times of the jars on it.
+     */
+    public static OrderIndex forClasspath(final String classpath) {
+        final String buildHash = buildHash(classpath);
+
+        try {
+            return new OrderIndex(PathManager.path(ORDER_INDEX).resolve(buildHash));
+        } catch (IOException e) {
+            Logger.getGlobal().log(Level.WARNING, "Could not open the order index, so orders will not be skipped", e);
+            return null;
+        }
+    }
+
+    public static String buildHash(final String classpath) {
+        final Hasher hasher = Hashing.murmur3_128().newHasher();
+
+        for (final String entry : classpath.split(File.pathSeparator)) {
+            final Path path = Paths.get(entry);
+            hasher.putString(entry, StandardCharsets.UTF_8).putByte((byte) 0);
+
+            try {
+                if (Files.isDirectory(path)) {
+                    final List<Path> classFiles;
+                    try (final Stream<Path> paths = Files.walk(path)) {
+                        classFiles = paths.filter(p -> p.toString().endsWith(".class")).sorted().collect(Collectors.toList());
+                    }
+
+                    for (final Path classFile : classFiles) {
+                        hasher.putString(path.relativize(classFile).toString(), StandardCharsets.UTF_8);
+                        hasher.putBytes(Files.readAllBytes(classFile));
+                    }
+                } else if (Files.exists(path)) {
+                    // A rebuilt jar (e.g., a SNAPSHOT dependency) may well have the same size, but not the same time
+                    hasher.putLong(Files.size(path));
+                    hasher.putLong(Files.getLastModifiedTime(path).toMillis());
+                }
+            } catch (IOException ignored) {}
+        }
+
+        return hasher.hash().toString();
+    }
+
+    public static byte[] fingerprint(final List<String> order) {
+        return OrderFingerprint.of(order).toBytes();
+    }
+
+    private final Path sortedPath;
+    private final Path journalPath;
+
+    private MappedByteBuffer sorted;
+    private int sortedCount;
+    private final Set<HashCode> journal = new HashSet<>();
+
+    private OrderIndex(final Path dir) throws IOException {
+        Files.createDirectories(dir);
+        this.sortedPath = dir.resolve("orders.idx");
+        this.journalPath = dir.resolve("orders.journal");
+
+        if (Files.exists(journalPath)) {
+            final byte[] bytes = Files.readAllBytes(journalPath);
+            // Ignore a partially written last entry
+            for (int i = 0; i + FINGERPRINT_BYTES <= bytes.length; i += FINGERPRINT_BYTES) {
+                journal.add(HashCode.fromBytes(Arrays.copyOfRange(bytes, i, i + FINGERPRINT_BYTES)));
+            }
+        }
+
+        if (!journal.isEmpty()) {
+            merge();
+        } else {
+            map();
+        }
+
+        Logger.getGlobal().log(Level.INFO, "Order index for this build has " + size() + " orders");
+    }
+
+    public int size() {
+        return sortedCount + journal.size();
+    }
+
+    public boolean contains(final List<String> order) {
+        return contains(fingerprint(order));
+    }
+
+    public synchronized boolean contains(final byte[] fingerprint) {
+        return journal.contains(HashCode.fromBytes(fingerprint)) || sortedContains(fingerprint);
+    }
+
+    public void add(final List<String> order) {
+        add(fingerprint(order));
+    }
+
+    public synchronized void add(final byte[] fingerprint) {
+        if (contains(fingerprint)) {
+            return;
+        }
+
+        journal.add(HashCode.fromBytes(fingerprint));
+
+        try {
+            Files.write(journalPath, fingerprint, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+            if (journal.size() >= MAX_JOURNAL_ENTRIES) {
+                merge();
+            }
+        } catch (IOException e) {
+            Logger.getGlobal().log(Level.WARNING, "Could not write to the order index", e);
+        }
+    }
+
+    private boolean sortedContains(final byte[] fingerprint) {
+        final byte[] current = new byte[FINGERPRINT_BYTES];
+
+        int low = 0;
+        int high = sortedCount - 1;
+
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            read(mid, current);
+
+            final int cmp = compare(current, fingerprint);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void read(final int i, final byte[] into) {
+        final ByteBuffer view = sorted.duplicate();
+        view.position(i * FINGERPRINT_BYTES);
+        view.get(into);
+    }
+
+    private static int compare(final byte[] a, final byte[] b) {
+        for (int i = 0; i < FINGERPRINT_BYTES; i++) {
+            final int cmp = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+
+        return 0;
+    }
+
+    private void map() throws IOException {
+        if (!Files.exists(sortedPath)) {
+            sorted = null;
+            sortedCount = 0;
+            return;
+        }
+
+        try (final FileChannel channel = FileChannel.open(sortedPath, StandardOpenOption.READ)) {
+            sortedCount = (int) (channel.size() / FINGERPRINT_BYTES);
+            sorted = channel.map(FileChannel.MapMode.READ_ONLY, 0, (long) sortedCount * FINGERPRINT_BYTES);
+        }
+    }
+
+    /**
+     * Merges the journal into the sorted file, replacing it atomically, then clears the journal.
+     */
+    private void merge() throws IOException {
+        map();
+
+        final List<byte[]> added = new ArrayList<>();
+        for (final HashCode hashCode : journal) {
+            final byte[] fingerprint = hashCode.asBytes();
+            if (!sortedContains(fingerprint)) {
+                added.add(fingerprint);
+            }
+        }
+        added.sort(OrderIndex::compare);
+
+        final Path tempPath = sortedPath.resolveSibling("orders.idx.tmp");
+        try (final FileChannel out = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                                                      StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(FINGERPRINT_BYTES * 4096);
+            final byte[] current = new byte[FINGERPRINT_BYTES];
+
+            int i = 0;
+            int j = 0;
+            while (i < sortedCount || j < added.size()) {
+                if (i < sortedCount) {
+                    read(i, current);
+                }
+
+                final byte[] next;
+                if (j >= added.size() || (i < sortedCount && compare(current, added.get(j)) < 0)) {
+                    next = current;
+                    i++;
+                } else {
+                    next = added.get(j);
+                    j++;
+                }
+
+                if (!buffer.hasRemaining()) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                buffer.put(next);
+            }
+
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+        }
+
+        sorted = null;
+        Files.move(tempPath, sortedPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(journalPath);
+        journal.clear();
+
+        map();
+    }
+}
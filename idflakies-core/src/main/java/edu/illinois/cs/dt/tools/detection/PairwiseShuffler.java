@@ -0,0 +1,281 @@
+package edu.illinois.cs.dt.tools.detection;
+
+import com.google.gson.reflect.TypeToken;
+import edu.illinois.cs.dt.tools.runner.JsonCodec;
+import edu.illinois.cs.dt.tools.utility.Level;
+import edu.illinois.cs.dt.tools.utility.Logger;
+import edu.illinois.cs.dt.tools.utility.PathManager;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates orders that cover as many ordered pairs of classes (A runs before B), and ordered pairs of methods within
+ * each class, as possible that earlier orders did not already cover. Which pairs are covered is kept across runs.
+ *
+ * Each order is built greedily: the next class is always the one that comes before the most classes that are not
+ * placed yet without having done so in an earlier order. Once every pair is covered, coverage starts over.
+ *
+ * Orders count as covered for the next order as soon as they are generated, so orders generated ahead of time (e.g.,
+ * for parallel rounds) still differ, but only the orders passed to {@link #markRun(List)} are saved.
+ */
+public class PairwiseShuffler {
+    public static final Path PAIRWISE_COVERAGE = Paths.get("pairwise-coverage.json");
+
+    private static final Type COVERAGE_TYPE = new TypeToken<Map<String, List<String>>>(){}.getType();
+
+    private final Map<String, List<String>> classToMethods = new LinkedHashMap<>();
+
+    private final PairCoverage classCoverage;
+    private final Map<String, PairCoverage> methodCoverage = new HashMap<>();
+
+    // Only the pairs covered by orders that actually ran, which is what is saved
+    private final PairCoverage ranClassCoverage;
+    private final Map<String, PairCoverage> ranMethodCoverage = new HashMap<>();
+
+    private final Random random;
+
+    public PairwiseShuffler(final List<String> tests) {
+        for (final String test : tests) {
+            classToMethods.computeIfAbsent(TestShuffler.className(test), c -> new ArrayList<>()).add(test);
+        }
+
+        final List<String> classes = new ArrayList<>(classToMethods.keySet());
+        Collections.sort(classes);
+        this.classCoverage = new PairCoverage(classes);
+        this.ranClassCoverage = new PairCoverage(classes);
+
+        for (final Map.Entry<String, List<String>> entry : classToMethods.entrySet()) {
+            final List<String> methods = new ArrayList<>(entry.getValue());
+            Collections.sort(methods);
+            methodCoverage.put(entry.getKey(), new PairCoverage(methods));
+            ranMethodCoverage.put(entry.getKey(), new PairCoverage(methods));
+        }
+
+        load();
+
+        this.random = new Random(RoundRandom.seed());
+    }
+
+    public List<String> nextOrder() {
+        final List<String> order = new ArrayList<>();
+
+        for (final String className : classCoverage.nextOrder(random)) {
+            order.addAll(methodCoverage.get(className).nextOrder(random));
+        }
+
+        Logger.getGlobal().log(Level.FINE, String.format("Pairwise coverage: %d of %d class pairs",
+                                                         classCoverage.covered, classCoverage.total()));
+
+        return order;
+    }
+
+    /**
+     * Records that the order ran (i.e., its round's result was used), and saves the coverage of the orders that ran.
+     */
+    public void markRun(final List<String> order) {
+        final Map<String, List<String>> ranClassToMethods = new LinkedHashMap<>();
+        for (final String test : order) {
+            ranClassToMethods.computeIfAbsent(TestShuffler.className(test), c -> new ArrayList<>()).add(test);
+        }
+
+        ranClassCoverage.coverOrder(new ArrayList<>(ranClassToMethods.keySet()));
+        ranClassToMethods.forEach((className, methods) -> {
+            final PairCoverage coverage = ranMethodCoverage.get(className);
+
+            if (coverage != null) {
+                coverage.coverOrder(methods);
+            }
+        });
+
+        save();
+    }
+
+    private void load() {
+        final Path path = PathManager.path(PAIRWISE_COVERAGE);
+
+        if (!Files.exists(path)) {
+            return;
+        }
+
+        try {
+            final Map<String, List<String>> coveredAfter =
+                    JsonCodec.read(path, COVERAGE_TYPE);
+
+            if (coveredAfter != null) {
+                classCoverage.load(coveredAfter);
+                methodCoverage.values().forEach(coverage -> coverage.load(coveredAfter));
+                ranClassCoverage.load(coveredAfter);
+                ranMethodCoverage.values().forEach(coverage -> coverage.load(coveredAfter));
+            }
+        } catch (IOException | RuntimeException e) {
+            Logger.getGlobal().log(Level.WARNING, "Could not read pairwise coverage from " + path, e);
+        }
+    }
+
+    private void save() {
+        final Map<String, List<String>> coveredAfter = new LinkedHashMap<>();
+
+        ranClassCoverage.save(coveredAfter);
+        ranMethodCoverage.values().forEach(coverage -> coverage.save(coveredAfter));
+
+        try {
+            final Path path = PathManager.path(PAIRWISE_COVERAGE);
+            Files.createDirectories(path.getParent());
+            JsonCodec.write(path, coveredAfter, COVERAGE_TYPE);
+        } catch (IOException e) {
+            Logger.getGlobal().log(Level.WARNING, "Could not write pairwise coverage", e);
+        }
+    }
+
+    /**
+     * Which ordered pairs of a group of names (classes, or methods of a class) have been covered so far.
+     */
+    private static class PairCoverage {
+        private final List<String> names;
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final boolean[][] before;
+        private int covered = 0;
+
+        private PairCoverage(final List<String> names) {
+            this.names = names;
+            this.before = new boolean[names.size()][names.size()];
+
+            for (int i = 0; i < names.size(); i++) {
+                indices.put(names.get(i), i);
+            }
+        }
+
+        private int total() {
+            return names.size() * (names.size() - 1);
+        }
+
+        private void cover(final int first, final int second) {
+            if (!before[first][second]) {
+                before[first][second] = true;
+                covered++;
+            }
+        }
+
+        private void resetIfFull() {
+            if (covered == total()) {
+                for (final boolean[] row : before) {
+                    Arrays.fill(row, false);
+                }
+                covered = 0;
+            }
+        }
+
+        /**
+         * Covers every pair of the names in the order (ignoring names that are not in this group).
+         */
+        private void coverOrder(final List<String> order) {
+            resetIfFull();
+
+            final List<Integer> placedSoFar = new ArrayList<>(order.size());
+            for (final String name : order) {
+                final Integer next = indices.get(name);
+
+                if (next != null) {
+                    for (final int earlier : placedSoFar) {
+                        if (earlier != next) {
+                            cover(earlier, next);
+                        }
+                    }
+                    placedSoFar.add(next);
+                }
+            }
+        }
+
+        private List<String> nextOrder(final Random random) {
+            final int n = names.size();
+
+            resetIfFull();
+
+            // Ties are broken in a random order, so that orders still vary when nothing is left to cover
+            final List<Integer> candidates = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                candidates.add(i);
+            }
+            Collections.shuffle(candidates, random);
+
+            // score[i] = how many pairs (i, j) would be newly covered by placing i before all remaining j
+            final int[] score = new int[n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (i != j && !before[i][j]) {
+                        score[i]++;
+                    }
+                }
+            }
+
+            final List<String> order = new ArrayList<>(n);
+            final boolean[] placed = new boolean[n];
+            final List<Integer> placedSoFar = new ArrayList<>(n);
+
+            for (int k = 0; k < n; k++) {
+                int next = -1;
+                for (final int candidate : candidates) {
+                    if (!placed[candidate] && (next == -1 || score[candidate] > score[next])) {
+                        next = candidate;
+                    }
+                }
+
+                placed[next] = true;
+                order.add(names.get(next));
+
+                for (int other = 0; other < n; other++) {
+                    if (!placed[other] && !before[other][next]) {
+                        score[other]--;
+                    }
+                }
+
+                for (final int earlier : placedSoFar) {
+                    cover(earlier, next);
+                }
+                placedSoFar.add(next);
+            }
+
+            return order;
+        }
+
+        private void load(final Map<String, List<String>> coveredAfter) {
+            for (int i = 0; i < names.size(); i++) {
+                for (final String after : coveredAfter.getOrDefault(names.get(i), Collections.emptyList())) {
+                    final Integer j = indices.get(after);
+
+                    if (j != null && j != i) {
+                        cover(i, j);
+                    }
+                }
+            }
+        }
+
+        private void save(final Map<String, List<String>> coveredAfter) {
+            for (int i = 0; i < names.size(); i++) {
+                final List<String> after = new ArrayList<>();
+
+                for (int j = 0; j < names.size(); j++) {
+                    if (before[i][j]) {
+                        after.add(names.get(j));
+                    }
+                }
+
+                if (!after.isEmpty()) {
+                    coveredAfter.put(names.get(i), after);
+                }
+            }
+        }
+    }
+}
@@ -1,10 +1,11 @@
 package edu.illinois.cs.dt.tools.detection;
 
-import com.google.gson.Gson;
 import com.reedoei.eunomia.collections.ListEx;
-import com.reedoei.eunomia.io.files.FileUtil;
 import com.reedoei.eunomia.util.StandardMain;
 import edu.illinois.cs.dt.tools.analysis.ResultDirVisitor;
+import edu.illinois.cs.dt.tools.runner.JsonCodec;
+import edu.illinois.cs.dt.tools.runner.ResultStore;
+import edu.illinois.cs.dt.tools.runner.ResultsFormat;
 import edu.illinois.cs.dt.tools.runner.RunnerPathManager;
 import edu.illinois.cs.dt.tools.runner.data.DependentTest;
 import edu.illinois.cs.dt.tools.utility.PathManager;
@@ -21,6 +22,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -116,7 +118,7 @@ public class RebuildDetectionRounds extends StandardMain {
             final List<Path> roundPaths = list.collect(Collectors.toList());
 
             for (final Path roundPath : roundPaths) {
-                final DetectionRound detectionRound = new Gson().fromJson(FileUtil.readFile(roundPath), DetectionRound.class);
+                final DetectionRound detectionRound = JsonCodec.read(roundPath, DetectionRound.class);
 
                 final List<DependentTest> allDts = new ArrayList<>();
 
@@ -126,7 +128,7 @@ public class RebuildDetectionRounds extends StandardMain {
 
                 final DetectionRound newRound = new DetectionRound(detectionRound.testRunIds(), allDts, allDts, detectionRound.roundTime());
 
-                Files.write(roundPath, new Gson().toJson(newRound).getBytes());
+                JsonCodec.write(roundPath, newRound);
             }
         }
 
@@ -149,8 +151,16 @@ public class RebuildDetectionRounds extends StandardMain {
     }
 
     private TestRunResult readTestRunResult(final Path resultsPath, final String id) throws IOException {
-        final String contents = FileUtil.readFile(resultsPath.resolve(RunnerPathManager.TEST_RUNS).resolve("results").resolve(id));
+        final Path testRuns = resultsPath.resolve(RunnerPathManager.TEST_RUNS);
 
-        return new Gson().fromJson(contents, TestRunResult.class);
+        if (ResultStore.exists(testRuns)) {
+            final Optional<TestRunResult> stored = ResultStore.open(testRuns).result(id);
+
+            if (stored.isPresent()) {
+                return stored.get();
+            }
+        }
+
+        return ResultsFormat.readTestRunResult(testRuns.resolve("results").resolve(id));
     }
 }
@@ -0,0 +1,65 @@
+package edu.illinois.cs.dt.tools.detection;
+
+import edu.illinois.cs.dt.tools.utility.Level;
+import edu.illinois.cs.dt.tools.utility.Logger;
+import edu.illinois.cs.testrunner.configuration.Configuration;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Random numbers for generating the order of a single round. Each round gets its own stream, derived from dt.seed,
+ * the detector type, and the round number, so the order for any round can be generated without generating the
+ * orders of the rounds before it (e.g., when rounds run in parallel, or when resuming from a later round).
+ */
+public class RoundRandom {
+    private static Integer seed = null;
+
+    public static synchronized int seed() {
+        if (seed == null) {
+            // Use passed in seed, if available
+            seed = 42;
+            try {
+                seed = Integer.parseInt(Configuration.config().getProperty("dt.seed", "42"));
+            } catch (NumberFormatException nfe) {
+                Logger.getGlobal().log(Level.INFO, "dt.seed needs to be an integer, using default seed " + seed);
+            }
+        }
+
+        return seed;
+    }
+
+    public static SplittableRandom forRound(final String type, final int round) {
+        return forRound(type, round, 0);
+    }
+
+    /**
+     * @param attempt Distinguishes orders drawn again for the same round, e.g., because the first one was already run.
+     */
+    public static SplittableRandom forRound(final String type, final int round, final int attempt) {
+        long state = mix(seed());
+        state = mix(state ^ type.hashCode());
+        state = mix(state ^ round);
+        state = mix(state ^ attempt);
+
+        return new SplittableRandom(state);
+    }
+
+    /**
+     * Fisher-Yates shuffle.
+     */
+    public static <T> void shuffle(final List<T> list, final SplittableRandom random) {
+        for (int i = list.size() - 1; i > 0; i--) {
+            Collections.swap(list, i, random.nextInt(i + 1));
+        }
+    }
+
+    // The finalizer from SplitMix64, so that nearby seeds, types, and rounds give unrelated streams
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,142 @@
+package edu.illinois.cs.dt.tools.detection;
+
+import edu.illinois.cs.dt.tools.detection.sharedstate.StaticStateAnalysis;
+import edu.illinois.cs.dt.tools.utility.Level;
+import edu.illinois.cs.dt.tools.utility.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates orders that run a class that writes some static field directly before a class that reads it, trying a
+ * different writer/reader pair each time until all of them have been tried. Classes that share no static state with
+ * any other class cannot depend on the order (through static fields), so they run last.
+ */
+public class SharedStateShuffler {
+    private final Map<String, List<String>> classToMethods = new LinkedHashMap<>();
+
+    // Each class that writes a field, mapped to the classes that read it
+    private final Map<String, List<String>> readersOf = new LinkedHashMap<>();
+    private final List<String> sharingClasses = new ArrayList<>();
+    private final List<String> otherClasses = new ArrayList<>();
+    private final int edgeCount;
+    private final Set<String> triedEdges = new HashSet<>();
+
+    private final Random random;
+
+    public SharedStateShuffler(final List<String> tests, final StaticStateAnalysis analysis) {
+        for (final String test : tests) {
+            classToMethods.computeIfAbsent(TestShuffler.className(test), c -> new ArrayList<>()).add(test);
+        }
+
+        final List<String> classes = new ArrayList<>(classToMethods.keySet());
+        Collections.sort(classes);
+
+        final Set<String> sharing = new HashSet<>();
+        int edges = 0;
+
+        for (final String writer : classes) {
+            final Set<String> writes = analysis.writes(writer);
+
+            for (final String reader : classes) {
+                if (!writer.equals(reader) && !Collections.disjoint(writes, analysis.reads(reader))) {
+                    readersOf.computeIfAbsent(writer, w -> new ArrayList<>()).add(reader);
+                    sharing.add(writer);
+                    sharing.add(reader);
+                    edges++;
+                }
+            }
+        }
+
+        this.edgeCount = edges;
+
+        for (final String className : classes) {
+            if (sharing.contains(className)) {
+                sharingClasses.add(className);
+            } else {
+                otherClasses.add(className);
+            }
+        }
+
+        Logger.getGlobal().log(Level.INFO, String.format("%d of %d test classes share static state (%d writer/reader pairs)",
+                                                         sharingClasses.size(), classes.size(), edgeCount));
+
+        this.random = new Random(RoundRandom.seed());
+    }
+
+    private static String edge(final String writer, final String reader) {
+        return writer + "->" + reader;
+    }
+
+    public List<String> nextOrder() {
+        if (triedEdges.size() >= edgeCount) {
+            triedEdges.clear();
+        }
+
+        final List<String> writers = new ArrayList<>(readersOf.keySet());
+        Collections.shuffle(writers, random);
+
+        final List<String> classOrder = new ArrayList<>();
+        final Set<String> placed = new HashSet<>();
+
+        // Chain untried writer -> reader pairs for as long as possible, then start a new chain from another writer
+        for (final String writer : writers) {
+            String current = writer;
+
+            while (current != null && !placed.contains(current)) {
+                classOrder.add(current);
+                placed.add(current);
+                current = untriedReader(current, placed);
+            }
+        }
+
+        final List<String> remainingSharing = new ArrayList<>(sharingClasses);
+        remainingSharing.removeAll(placed);
+        Collections.shuffle(remainingSharing, random);
+        classOrder.addAll(remainingSharing);
+
+        final List<String> others = new ArrayList<>(otherClasses);
+        Collections.shuffle(others, random);
+        classOrder.addAll(others);
+
+        // Only real writer -> reader pairs count, so that triedEdges only fills up once every one of them has been tried
+        for (int i = 0; i + 1 < classOrder.size(); i++) {
+            final String writer = classOrder.get(i);
+            final String reader = classOrder.get(i + 1);
+
+            if (readersOf.getOrDefault(writer, Collections.emptyList()).contains(reader)) {
+                triedEdges.add(edge(writer, reader));
+            }
+        }
+
+        final List<String> order = new ArrayList<>();
+        for (final String className : classOrder) {
+            final List<String> methods = new ArrayList<>(classToMethods.get(className));
+            Collections.sort(methods);
+            Collections.shuffle(methods, random);
+            order.addAll(methods);
+        }
+
+        return order;
+    }
+
+    private String untriedReader(final String writer, final Set<String> placed) {
+        final List<String> readers = new ArrayList<>(readersOf.getOrDefault(writer, Collections.emptyList()));
+        Collections.shuffle(readers, random);
+
+        for (final String reader : readers) {
+            if (!placed.contains(reader) && !triedEdges.contains(edge(writer, reader))) {
+                return reader;
+            }
+        }
+
+        return null;
+    }
+}
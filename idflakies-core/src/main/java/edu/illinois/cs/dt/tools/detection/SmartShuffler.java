@@ -1,9 +1,5 @@
 package edu.illinois.cs.dt.tools.detection;
 
-import edu.illinois.cs.testrunner.configuration.Configuration;
-import edu.illinois.cs.dt.tools.utility.Level;
-import edu.illinois.cs.dt.tools.utility.Logger;
-
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -11,11 +7,16 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.SplittableRandom;
 
+/**
+ * Generates orders where each test comes first in one of the first n rounds, and last in another (where n is the
+ * number of tests). Each round's order is generated independently from the others, see {@link RoundRandom}.
+ */
 public class SmartShuffler {
+    private static final String TYPE = "smart-shuffle";
+
+    // The test that comes first (last) in round i is toComeFirst[i] (toComeLast[i])
     private final List<String> toComeFirst;
     private final List<String> toComeLast;
 
@@ -24,13 +25,28 @@ public class SmartShuffler {
 
     private final List<String> tests;
 
-    private final Random random;
+    private int nextRound = 0;
 
     public SmartShuffler(final List<String> tests) {
         this.tests = new ArrayList<>(tests);
 
         toComeFirst = new ArrayList<>(tests);
+        Collections.sort(toComeFirst);
+        RoundRandom.shuffle(toComeFirst, RoundRandom.forRound(TYPE + "-first", 0));
+
         toComeLast = new ArrayList<>(tests);
+        Collections.sort(toComeLast);
+        RoundRandom.shuffle(toComeLast, RoundRandom.forRound(TYPE + "-last", 0));
+
+        // No test should come both first and last in the same round. Swapping with the next test always fixes this,
+        // since both lists are permutations of the same tests
+        if (toComeLast.size() > 1) {
+            for (int i = 0; i < toComeLast.size(); i++) {
+                if (toComeLast.get(i).equals(toComeFirst.get(i))) {
+                    Collections.swap(toComeLast, i, (i + 1) % toComeLast.size());
+                }
+            }
+        }
 
         classToMethods = new HashMap<>();
         methodToClass = new HashMap<>();
@@ -45,15 +61,6 @@ public class SmartShuffler {
             classToMethods.get(className).add(test);
             methodToClass.put(test, className);
         }
-
-        // Set up Random instance using passed in seed, if available
-        int seed = 42;
-        try {
-            seed = Integer.parseInt(Configuration.config().getProperty("dt.seed", "42"));
-        } catch (NumberFormatException nfe) {
-            Logger.getGlobal().log(Level.INFO, "dt.seed needs to be an integer, using default seed " + seed);
-        }
-        this.random = new Random(seed);
     }
 
     private List<String> testSiblings(final String testName) {
@@ -61,7 +68,8 @@ public class SmartShuffler {
     }
 
     @SafeVarargs
-    private final void addTestMethods(final List<String> order, final Optional<String>... excluding) {
+    private final void addTestMethods(final List<String> order, final SplittableRandom random,
+                                      final Optional<String>... excluding) {
         // Add all classes other than the last one
         for (final List<String> methods : classToMethods.values()) {
             final boolean foundExcludedTest =
@@ -69,19 +77,27 @@ public class SmartShuffler {
 
             if (!foundExcludedTest) {
                 List<String> methodsShuffled = new ArrayList<>(methods);
-                Collections.sort(methods);
-                Collections.shuffle(methods, random);
+                Collections.sort(methodsShuffled);
+                RoundRandom.shuffle(methodsShuffled, random);
                 order.addAll(methodsShuffled);
             }
         }
     }
 
     public List<String> nextOrder() {
-        final Optional<String> first = sample(toComeFirst);
-        final Optional<String> last = first.isPresent() ? sample(toComeLast, first.get()) : sample(toComeLast);
+        return order(nextRound++);
+    }
+
+    public List<String> order(final int round) {
+        final SplittableRandom random = RoundRandom.forRound(TYPE, round);
+
+        final Optional<String> first = round < toComeFirst.size() ? Optional.of(toComeFirst.get(round)) : Optional.empty();
+        final Optional<String> last = round < toComeLast.size() && toComeLast.size() > 1 ?
+                Optional.of(toComeLast.get(round)) : Optional.empty();
 
-        first.ifPresent(toComeFirst::remove);
-        last.ifPresent(toComeLast::remove);
+        // If both tests are in the same class, the class's other tests run right after the first test
+        final boolean sameClass = first.isPresent() && last.isPresent() &&
+                methodToClass.get(first.get()).equals(methodToClass.get(last.get()));
 
         final List<String> order = new ArrayList<>();
 
@@ -89,19 +105,23 @@ public class SmartShuffler {
         if (first.isPresent()) {
             List<String> siblings = new ArrayList<>(testSiblings(first.get()));
             Collections.sort(siblings);
-            Collections.shuffle(siblings, random);
+            RoundRandom.shuffle(siblings, random);
             order.addAll(siblings);
             order.remove(first.get());
             order.add(0, first.get());
+
+            if (sameClass) {
+                order.remove(last.get());
+            }
         }
 
-        addTestMethods(order, first, last);
+        addTestMethods(order, random, first, last);
 
         // Add all tests from the last class, make sure the last test actually comes last
         if (last.isPresent()) {
-            List<String> siblings = new ArrayList<>(testSiblings(last.get()));
+            List<String> siblings = sameClass ? new ArrayList<>() : new ArrayList<>(testSiblings(last.get()));
             Collections.sort(siblings);
-            Collections.shuffle(siblings, random);
+            RoundRandom.shuffle(siblings, random);
             order.addAll(siblings);
             order.remove(last.get());
             order.add(last.get());
@@ -109,21 +129,4 @@ public class SmartShuffler {
 
         return order;
     }
-
-    private Optional<String> sample(final List<String> from, final String... excluding) {
-        return sample(from, Arrays.stream(excluding).collect(Collectors.toSet()));
-    }
-
-    private Optional<String> sample(final List<String> from, final Set<String> excluding) {
-        List<String> fromShuffled = new ArrayList<>(from);
-        Collections.sort(fromShuffled);
-        Collections.shuffle(fromShuffled, random);
-        for (final String s : fromShuffled) {
-            if (!excluding.contains(s)) {
-                return Optional.ofNullable(s);
-            }
-        }
-
-        return Optional.empty();
-    }
 }
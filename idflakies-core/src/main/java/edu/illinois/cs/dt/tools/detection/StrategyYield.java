@@ -0,0 +1,48 @@
+package edu.illinois.cs.dt.tools.detection;
+
+import edu.illinois.cs.dt.tools.runner.JsonCodec;
+
+/**
+ * How many new, confirmed order-dependent tests one strategy of the adaptive detector has found, and at what cost.
+ */
+public class StrategyYield {
+    private final String strategy;
+    private final int rounds;
+    private final int newTests;
+    private final double seconds;
+
+    public StrategyYield(final String strategy, final int rounds, final int newTests, final double seconds) {
+        this.strategy = strategy;
+        this.rounds = rounds;
+        this.newTests = newTests;
+        this.seconds = seconds;
+    }
+
+    public String strategy() {
+        return strategy;
+    }
+
+    public int rounds() {
+        return rounds;
+    }
+
+    public int newTests() {
+        return newTests;
+    }
+
+    public double seconds() {
+        return seconds;
+    }
+
+    /**
+     * New tests found per second spent running and confirming this strategy's rounds.
+     */
+    public double testsPerSecond() {
+        return seconds <= 0 ? 0 : newTests / seconds;
+    }
+
+    @Override
+    public String toString() {
+        return JsonCodec.gson().toJson(this);
+    }
+}
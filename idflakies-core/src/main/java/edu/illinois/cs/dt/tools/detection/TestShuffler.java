@@ -2,13 +2,10 @@ package edu.illinois.cs.dt.tools.detection;
 
 import com.google.common.collect.Lists;
 import com.google.common.math.IntMath;
-import com.google.gson.Gson;
 import com.reedoei.eunomia.collections.ListUtil;
-import com.reedoei.eunomia.io.files.FileUtil;
+import edu.illinois.cs.dt.tools.runner.JsonCodec;
 import edu.illinois.cs.dt.tools.runner.RunnerPathManager;
-import edu.illinois.cs.dt.tools.utility.Level;
-import edu.illinois.cs.dt.tools.utility.Logger;
-import edu.illinois.cs.dt.tools.utility.MD5;
+import edu.illinois.cs.dt.tools.utility.OrderFingerprint;
 import edu.illinois.cs.dt.tools.utility.PathManager;
 import edu.illinois.cs.testrunner.configuration.Configuration;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
@@ -23,11 +20,14 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Random;
+import java.util.Optional;
 import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.stream.Collectors;
 
 public class TestShuffler {
+    private static final int MAX_REDRAWS = 100;
+
     public static String className(final String testName) {
         return testName.substring(0, testName.lastIndexOf('.'));
     }
@@ -36,10 +36,11 @@ public class TestShuffler {
 
     private final String type;
     private final List<String> tests;
-    private final Set<String> alreadySeenOrders = new HashSet<>();
+    private final Set<OrderFingerprint> alreadySeenOrders = new HashSet<>();
     private final File baseDir;
 
-    private final Random random;
+    // Orders run against this build by earlier runs of the plugin, if enabled (dt.detector.order.index=true)
+    private OrderIndex orderIndex;
 
     public TestShuffler(final String type, final int rounds, final List<String> tests, final File baseDir) {
         this.type = type;
@@ -57,15 +58,14 @@ public class TestShuffler {
 
             classToMethods.get(className).add(test);
         }
+    }
 
-        // Set up Random instance using passed in seed, if available
-        int seed = 42;
-        try {
-            seed = Integer.parseInt(Configuration.config().getProperty("dt.seed", "42"));
-        } catch (NumberFormatException nfe) {
-            Logger.getGlobal().log(Level.INFO, "dt.seed needs to be an integer, using default seed " + seed);
-        }
-        this.random = new Random(seed);
+    /**
+     * Skips orders that are in the index when shuffling, and adds the orders passed to {@link #markRun(List)} to it.
+     */
+    public TestShuffler withOrderIndex(final OrderIndex orderIndex) {
+        this.orderIndex = orderIndex;
+        return this;
     }
 
     private String historicalType() {
@@ -82,17 +82,54 @@ public class TestShuffler {
         if (useRevPassing) {
             return shuffledOrder(i);
         } else {
-            List<String> revPassingOrder = Lists.reverse(lastRandomResult.testOrder());
-            String md5 = MD5.md5(String.join("", revPassingOrder));
-            if (alreadySeenOrders.contains(md5)) {
-                return shuffledOrder(i);
+            final Optional<List<String>> revPassingOrder = reversedOrder(lastRandomResult);
+            if (revPassingOrder.isPresent()) {
+                markSeen(revPassingOrder.get());
+                return revPassingOrder.get();
             } else {
-                alreadySeenOrders.add(md5);
-                return revPassingOrder;
+                return shuffledOrder(i);
             }
         }
     }
 
+    /**
+     * The reverse of the order that was last run, unless that order has already been run.
+     * Does not mark the order as seen, so callers can run it speculatively and only commit to it later.
+     */
+    public Optional<List<String>> reversedOrder(final TestRunResult lastRandomResult) {
+        final List<String> revPassingOrder = Lists.reverse(lastRandomResult.testOrder());
+
+        if (alreadySeen(revPassingOrder)) {
+            return Optional.empty();
+        } else {
+            return Optional.of(revPassingOrder);
+        }
+    }
+
+    /**
+     * Keeps this shuffler from generating the order again. Only {@link #markRun(List)} adds it to the order index,
+     * since an order that was generated may never run (e.g., a discarded speculative or prefetched round).
+     */
+    public void markSeen(final List<String> order) {
+        alreadySeenOrders.add(OrderFingerprint.of(order));
+    }
+
+    /**
+     * Records that the order ran and its result was saved, so later runs against the same build skip it.
+     */
+    public void markRun(final List<String> order) {
+        markSeen(order);
+
+        if (orderIndex != null) {
+            orderIndex.add(order);
+        }
+    }
+
+    private boolean alreadySeen(final List<String> order) {
+        return alreadySeenOrders.contains(OrderFingerprint.of(order)) ||
+                (orderIndex != null && orderIndex.contains(order));
+    }
+
     public List<String> shuffledOrder(final int i) {
         if (type.startsWith("reverse")) {
             return reverseOrder();
@@ -104,11 +141,11 @@ public class TestShuffler {
             // look up whether a previous execution of the plugin generated orders for this round already
             // if so, then run the same revealed order as before
             if (Files.exists(historicalRun)) {
-                return generateHistorical(readHistorical(historicalRun));
+                return generateHistorical(i, readHistorical(historicalRun));
             }
         } catch (IOException ignored) {}
 
-        return generateShuffled();
+        return generateShuffled(i);
     }
 
     private List<String> reverseOrder() {
@@ -123,7 +160,7 @@ public class TestShuffler {
     }
 
     private List<String> readHistorical(final Path historicalRun) throws IOException {
-        final DetectionRound detectionRound = new Gson().fromJson(FileUtil.readFile(historicalRun), DetectionRound.class);
+        final DetectionRound detectionRound = JsonCodec.read(historicalRun, DetectionRound.class);
 
         return detectionRound.testRunIds().stream()
                 .flatMap(n -> RunnerPathManager.resultFor(n))
@@ -132,24 +169,47 @@ public class TestShuffler {
                 .orElse(new ArrayList<>());
     }
 
-    private List<String> generateHistorical(final List<String> historicalOrder) {
+    private List<String> generateHistorical(final int i, final List<String> historicalOrder) {
         if ("random-class".equals(type)) {
-            return generateWithClassOrder(classOrder(historicalOrder));
+            return generateWithClassOrder(classOrder(historicalOrder), RoundRandom.forRound(type, i));
         } else {
-            alreadySeenOrders.add(MD5.md5(String.join("", historicalOrder)));
+            markSeen(historicalOrder);
             return historicalOrder;
         }
     }
 
-    private List<String> generateShuffled() {
+    private List<String> generateShuffled(final int i) {
+        List<String> order = shuffled(RoundRandom.forRound(type, i));
+
+        if (orderIndex != null) {
+            // Only redraw a bounded number of times, because small test suites may have run every possible order
+            for (int redraws = 1; redraws <= MAX_REDRAWS && orderIndex.contains(order); redraws++) {
+                order = shuffled(RoundRandom.forRound(type, i, redraws));
+            }
+        }
+
+        markSeen(order);
+
+        return order;
+    }
+
+    private List<String> shuffled(final SplittableRandom random) {
         // sort the classes alphabetically, then shuffle as to ensure deterministic randomness
         List<String> classes = new ArrayList<>(classToMethods.keySet());
         Collections.sort(classes);
-        Collections.shuffle(classes, random);
-        return generateWithClassOrder(classes);
+        RoundRandom.shuffle(classes, random);
+        return withClassOrder(classes, random);
+    }
+
+    private List<String> generateWithClassOrder(final List<String> classOrder, final SplittableRandom random) {
+        final List<String> fullTestOrder = withClassOrder(classOrder, random);
+
+        markSeen(fullTestOrder);
+
+        return fullTestOrder;
     }
 
-    private List<String> generateWithClassOrder(final List<String> classOrder) {
+    private List<String> withClassOrder(final List<String> classOrder, final SplittableRandom random) {
         final List<String> fullTestOrder = new ArrayList<>();
 
         for (final String className : classOrder) {
@@ -159,15 +219,13 @@ public class TestShuffler {
             } else {
                 // the standard "random" type, will shuffle both
                 // sort the methods alphabetically, then shuffle as to ensure deterministic randomness
-                List<String> methods = classToMethods.get(className);
+                List<String> methods = new ArrayList<>(classToMethods.get(className));
                 Collections.sort(methods);
-                Collections.shuffle(methods, random);
+                RoundRandom.shuffle(methods, random);
                 fullTestOrder.addAll(methods);
             }
         }
 
-        alreadySeenOrders.add(MD5.md5(String.join("", fullTestOrder)));
-
         return fullTestOrder;
     }
 
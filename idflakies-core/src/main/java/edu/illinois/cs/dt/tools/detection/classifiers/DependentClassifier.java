@@ -1,5 +1,6 @@
 package edu.illinois.cs.dt.tools.detection.classifiers;
 
+import edu.illinois.cs.dt.tools.runner.data.TestOrder;
 import edu.illinois.cs.dt.tools.runner.data.TestRun;
 import edu.illinois.cs.testrunner.data.results.Result;
 import edu.illinois.cs.testrunner.data.results.TestResult;
@@ -22,6 +23,8 @@ public class DependentClassifier implements Classifier {
 
     @Override
     public void update(final TestRunResult testRunResult) {
+        final TestOrder order = TestOrder.of(testRunResult.testOrder());
+
         for (final Map.Entry<String, TestResult> entry : testRunResult.results().entrySet()) {
             final String testName = entry.getKey();
             final TestResult result = entry.getValue();
@@ -32,7 +35,7 @@ public class DependentClassifier implements Classifier {
                 results.add(result.result());
 
                 final Set<TestRun> runs = dependentRuns.getOrDefault(testName, new HashSet<>());
-                runs.add(new TestRun(testRunResult.testOrder(), result.result(), testRunResult.id()));
+                runs.add(new TestRun(order, result.result(), testRunResult.id()));
                 dependentRuns.put(testName, runs);
             }
 
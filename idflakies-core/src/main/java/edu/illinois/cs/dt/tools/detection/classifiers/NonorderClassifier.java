@@ -1,8 +1,8 @@
 package edu.illinois.cs.dt.tools.detection.classifiers;
 
-import com.reedoei.eunomia.collections.ListUtil;
+import edu.illinois.cs.dt.tools.runner.data.TestOrder;
 import edu.illinois.cs.dt.tools.runner.data.TestRun;
-import edu.illinois.cs.dt.tools.utility.MD5;
+import edu.illinois.cs.dt.tools.utility.LongMap;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
 
 import java.util.HashMap;
@@ -12,18 +12,25 @@ import java.util.Set;
 
 public class NonorderClassifier implements Classifier {
     private final Set<String> flaky = new HashSet<>();
-    private final Map<String, Map<String, TestRun>> knownRuns = new HashMap<>();
+    // For each test, the runs with each distinct prefix (by hash) before the test
+    private final Map<String, LongMap<TestRun>> knownRuns = new HashMap<>();
 
     @Override
     public void update(final TestRunResult testRunResult) {
+        final TestOrder order = TestOrder.of(testRunResult.testOrder());
+        final long[] prefixHashes = order.prefixHashes();
+        final int[] positions = order.positions();
+
         testRunResult.results().forEach((testName, result) -> {
             // If we already know it's non-order dependent, just leave
             if (flaky.contains(testName)) {
                 return;
             }
 
-            final Map<String, TestRun> runs = knownRuns.getOrDefault(testName, new HashMap<>());
-            final String orderHash = MD5.hashOrder(ListUtil.before(testRunResult.testOrder(), testName));
+            final LongMap<TestRun> runs = knownRuns.computeIfAbsent(testName, t -> new LongMap<>());
+
+            // Tests that are not in the order have an empty prefix, like TestOrder.before
+            final long orderHash = prefixHashes[Math.max(TestOrder.position(testName, positions), 0)];
 
             final TestRun expectedResult = runs.get(orderHash);
 
@@ -33,8 +40,7 @@ public class NonorderClassifier implements Classifier {
                     flaky.add(testName);
                 }
             } else {
-                runs.put(orderHash, new TestRun(testRunResult.testOrder(), result.result(), testRunResult.id()));
-                knownRuns.put(testName, runs);
+                runs.put(orderHash, new TestRun(order, result.result(), testRunResult.id()));
             }
         });
     }
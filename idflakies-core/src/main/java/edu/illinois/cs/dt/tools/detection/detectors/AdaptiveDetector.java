@@ -0,0 +1,164 @@
+package edu.illinois.cs.dt.tools.detection.detectors;
+
+import edu.illinois.cs.dt.tools.detection.DetectionRound;
+import edu.illinois.cs.dt.tools.detection.DetectorUtil;
+import edu.illinois.cs.dt.tools.detection.OrderIndex;
+import edu.illinois.cs.dt.tools.detection.PairwiseShuffler;
+import edu.illinois.cs.dt.tools.detection.SmartShuffler;
+import edu.illinois.cs.dt.tools.detection.StrategyYield;
+import edu.illinois.cs.dt.tools.detection.TestShuffler;
+import edu.illinois.cs.dt.tools.detection.filters.ConfirmationFilter;
+import edu.illinois.cs.dt.tools.detection.filters.MinimizeFilter;
+import edu.illinois.cs.dt.tools.detection.filters.UniqueFilter;
+import edu.illinois.cs.dt.tools.runner.InstrumentingSmartRunner;
+import edu.illinois.cs.dt.tools.utility.Level;
+import edu.illinois.cs.dt.tools.utility.Logger;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Interleaves rounds from the other detectors' strategies, running each round with whichever strategy looks most
+ * likely to find new order-dependent tests, as a multi-armed bandit (UCB1).
+ *
+ * A strategy's yield is the number of new tests that it has found (after confirmation) per second spent running and
+ * confirming its rounds. All strategies share the same original results.
+ */
+public class AdaptiveDetector extends ExecutingDetector {
+    private final TestRunResult origResult;
+    private final List<Strategy> strategies = new ArrayList<>();
+
+    public AdaptiveDetector(final InstrumentingSmartRunner runner, final File baseDir,
+                            final int rounds, final List<String> tests,
+                            final String type) {
+        super(runner, baseDir, rounds, type);
+
+        this.origResult = DetectorUtil.originalResults(tests, runner);
+
+        final TestShuffler random = new TestShuffler("random", rounds, tests, baseDir);
+        final TestShuffler randomClass = new TestShuffler("random-class", rounds, tests, baseDir);
+        final TestShuffler reverse = new TestShuffler("reverse", rounds, tests, baseDir);
+        final TestShuffler reverseClass = new TestShuffler("reverse-class", rounds, tests, baseDir);
+        if (OrderIndex.enabled()) {
+            // Both random strategies share one index, since an order is the same no matter which strategy drew it
+            final OrderIndex orderIndex = OrderIndex.forClasspath(runner.classpath());
+            random.withOrderIndex(orderIndex);
+            randomClass.withOrderIndex(orderIndex);
+        }
+        final SmartShuffler smartShuffler = new SmartShuffler(tests);
+        final PairwiseShuffler pairwiseShuffler = new PairwiseShuffler(tests);
+
+        strategies.add(new Strategy("random", random::shuffledOrder, Integer.MAX_VALUE, random::markRun));
+        strategies.add(new Strategy("random-class", randomClass::shuffledOrder, Integer.MAX_VALUE, randomClass::markRun));
+        // There is only one way to reverse the tests
+        strategies.add(new Strategy("reverse", reverse::shuffledOrder, 1));
+        strategies.add(new Strategy("reverse-class", reverseClass::shuffledOrder, 1));
+        strategies.add(new Strategy("smart-shuffle", round -> smartShuffler.nextOrder(), Integer.MAX_VALUE));
+        strategies.add(new Strategy("pairwise", round -> pairwiseShuffler.nextOrder(), Integer.MAX_VALUE,
+                                    pairwiseShuffler::markRun));
+        strategies.add(new Strategy("original", round -> tests, Integer.MAX_VALUE));
+
+        addFilter(new ConfirmationFilter(type, tests, runner));
+        addFilter(new UniqueFilter());
+        addFilter(new MinimizeFilter(runner));
+    }
+
+    @Override
+    public DetectionRound results() throws Exception {
+        // The choice depends on the results of all earlier rounds, so rounds always run one at a time
+        final Strategy strategy = choose();
+        final TestRunResult result = runList(strategy.orders.apply(absoluteRound.get()));
+        strategy.ran.accept(result.testOrder());
+        final DetectionRound round = makeDts(origResult, result);
+
+        strategy.rounds++;
+        strategy.newTests += round.filteredTests().size();
+        strategy.seconds += round.roundTime();
+
+        Logger.getGlobal().log(Level.FINE, String.format("Adaptive round %d used %s: %d new tests in %.1f seconds",
+                                                         absoluteRound.get(), strategy.name,
+                                                         round.filteredTests().size(), round.roundTime()));
+
+        return new DetectionRound(round.testRunIds(), round.unfilteredTests().dts(), round.filteredTests().dts(),
+                                  round.roundTime(), strategy.name, yields());
+    }
+
+    private List<StrategyYield> yields() {
+        return strategies.stream()
+                .map(s -> new StrategyYield(s.name, s.rounds, s.newTests, s.seconds))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Tries every strategy once, then picks the one with the highest upper confidence bound on its yield.
+     */
+    private Strategy choose() {
+        final List<Strategy> available =
+                strategies.stream().filter(s -> s.rounds < s.maxRounds).collect(Collectors.toList());
+
+        if (available.isEmpty()) {
+            // Can only happen if every strategy is limited, in which case just keep running the first one
+            return strategies.get(0);
+        }
+
+        for (final Strategy strategy : available) {
+            if (strategy.rounds == 0) {
+                return strategy;
+            }
+        }
+
+        final int totalRounds = strategies.stream().mapToInt(s -> s.rounds).sum();
+
+        // Yields are not bounded like UCB1 expects, so scale the exploration term by the best yield so far.
+        // If nothing has been found yet, every strategy looks the same and this picks the least used one.
+        final double bestYield = available.stream().mapToDouble(Strategy::testsPerSecond).max().orElse(0);
+        final double scale = bestYield > 0 ? bestYield : 1;
+
+        Strategy best = null;
+        double bestBound = Double.NEGATIVE_INFINITY;
+
+        for (final Strategy strategy : available) {
+            final double bound = strategy.testsPerSecond() + scale * Math.sqrt(2 * Math.log(totalRounds) / strategy.rounds);
+
+            if (bound > bestBound) {
+                best = strategy;
+                bestBound = bound;
+            }
+        }
+
+        return best;
+    }
+
+    private static class Strategy {
+        private final String name;
+        private final IntFunction<List<String>> orders;
+        private final int maxRounds;
+        // Called with each order once it has run
+        private final Consumer<List<String>> ran;
+
+        private int rounds = 0;
+        private int newTests = 0;
+        private double seconds = 0;
+
+        private Strategy(final String name, final IntFunction<List<String>> orders, final int maxRounds) {
+            this(name, orders, maxRounds, order -> {});
+        }
+
+        private Strategy(final String name, final IntFunction<List<String>> orders, final int maxRounds,
+                         final Consumer<List<String>> ran) {
+            this.name = name;
+            this.orders = orders;
+            this.maxRounds = maxRounds;
+            this.ran = ran;
+        }
+
+        private double testsPerSecond() {
+            return seconds <= 0 ? 0 : newTests / seconds;
+        }
+    }
+}
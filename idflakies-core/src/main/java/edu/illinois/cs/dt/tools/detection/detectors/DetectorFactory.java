@@ -24,6 +24,12 @@ public class DetectorFactory {
             return new OriginalDetector(runner, baseDir, rounds, tests);
         } else if (detectorType().equals("smart-shuffle")) {
             return new SmartShuffleDetector(runner, baseDir, rounds, tests, detectorType());
+        } else if (detectorType().equals("pairwise")) {
+            return new PairwiseDetector(runner, baseDir, rounds, tests, detectorType());
+        } else if (detectorType().equals("shared-state")) {
+            return new SharedStateDetector(runner, baseDir, rounds, tests, detectorType());
+        } else if (detectorType().equals("adaptive")) {
+            return new AdaptiveDetector(runner, baseDir, rounds, tests, detectorType());
         }
 
         return new RandomDetector("random", baseDir, runner, rounds, tests);
@@ -8,10 +8,20 @@ import com.reedoei.eunomia.string.StringUtil;
 import edu.illinois.cs.dt.tools.detection.DetectionRound;
 import edu.illinois.cs.dt.tools.detection.DetectorUtil;
 import edu.illinois.cs.dt.tools.detection.filters.Filter;
+import edu.illinois.cs.dt.tools.detection.sharedstate.StaticStateAnalysis;
+import edu.illinois.cs.dt.tools.detection.sharedstate.TestShards;
+import edu.illinois.cs.dt.tools.runner.JsonCodec;
+import edu.illinois.cs.dt.tools.runner.RunOverhead;
+import edu.illinois.cs.dt.tools.runner.RunnerPathManager;
+import edu.illinois.cs.dt.tools.runner.RunnerPool;
 import edu.illinois.cs.dt.tools.runner.data.DependentTest;
 import edu.illinois.cs.dt.tools.runner.data.DependentTestList;
+import edu.illinois.cs.dt.tools.utility.Level;
+import edu.illinois.cs.dt.tools.utility.Logger;
+import edu.illinois.cs.dt.tools.utility.MemoryUsage;
 import edu.illinois.cs.dt.tools.utility.PathManager;
 import edu.illinois.cs.testrunner.configuration.Configuration;
+import edu.illinois.cs.testrunner.data.results.TestResult;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
 import edu.illinois.cs.testrunner.runner.Runner;
 
@@ -19,12 +29,22 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -40,6 +60,29 @@ public abstract class ExecutingDetector implements Detector, VerbosePrinter {
 
     private final Stopwatch stopwatch = Stopwatch.createUnstarted();
 
+    // Only used when rounds run in parallel (dt.detector.parallel.workers > 1)
+    private final int workers = RunnerPool.workers();
+    private RunnerPool pool;
+    private final Deque<CompletableFuture<TestRunResult>> pendingRounds = new ArrayDeque<>();
+    private final List<CompletableFuture<?>> discards = new ArrayList<>();
+    private int nextRoundToSubmit = 0;
+    private int roundsRemaining = 0;
+
+    // Only used when splitting rounds into independent shards (dt.detector.shards > 1)
+    private final int shardCount = Configuration.config().getProperty("dt.detector.shards", 1);
+    private TestShards shards;
+    private RunnerPool shardPool;
+
+    // Only used with the deadline scheduler (dt.detector.scheduler=deadline)
+    private final boolean deadline = usesDeadlineScheduler();
+    private final double budgetSeconds = Configuration.config().getProperty("detector.timeout", 6 * 3600.0);
+    private final long startTimeMs = System.currentTimeMillis();
+    private int timedRounds = 0;
+    private double runSeconds = 0;
+    private int filteredRounds = 0;
+    private double filterSeconds = 0;
+    private double lastFilterSeconds = 0;
+
     public ExecutingDetector(final Runner runner, final File baseDir, final int rounds, final String name) {
         this.runner = runner;
         this.baseDir = baseDir;
@@ -50,15 +93,250 @@ public abstract class ExecutingDetector implements Detector, VerbosePrinter {
     public abstract DetectionRound results() throws Exception;
 
     protected TestRunResult runList(final List<String> tests) {
+        if (shardCount > 1) {
+            final List<List<String>> shardOrders = shards(tests).split(tests);
+
+            if (shardOrders.size() > 1) {
+                return runShards(tests, shardOrders);
+            }
+        }
+
         return runner.runList(tests).get();
     }
 
+    private TestShards shards(final List<String> tests) {
+        if (shards == null) {
+            shards = new TestShards(tests, StaticStateAnalysis.fromClasspath(runner.classpath()), shardCount);
+        }
+
+        return shards;
+    }
+
+    /**
+     * Runs each shard's part of the order in its own JVM, all at once, and merges the results as if the whole order
+     * had run: the merged result has the same test order, and is saved instead of the shards' partial results.
+     */
+    private TestRunResult runShards(final List<String> order, final List<List<String>> shardOrders) {
+        if (shardPool == null) {
+            shardPool = new RunnerPool(runner, baseDir, shardCount);
+        }
+
+        final List<Future<TestRunResult>> futures = new ArrayList<>();
+        for (final List<String> shardOrder : shardOrders) {
+            futures.add(shardPool.submit(shardOrder));
+        }
+
+        try {
+            final List<TestRunResult> shardResults = new ArrayList<>();
+            final Map<String, TestResult> shardTestResults = new HashMap<>();
+            for (final Future<TestRunResult> future : futures) {
+                final TestRunResult shardResult = future.get();
+                shardResults.add(shardResult);
+                shardTestResults.putAll(shardResult.results());
+            }
+
+            final Map<String, TestResult> results = new LinkedHashMap<>();
+            for (final String testName : order) {
+                final TestResult testResult = shardTestResults.get(testName);
+
+                if (testResult != null) {
+                    results.put(testName, testResult);
+                }
+            }
+
+            final TestRunResult merged = new TestRunResult(UUID.randomUUID().toString(), new ArrayList<>(results.keySet()), results);
+            RunnerPathManager.outputResult(merged);
+
+            // Each shard's runner saved its own partial result, which is not a round on its own
+            for (final TestRunResult shardResult : shardResults) {
+                RunnerPathManager.discardResult(shardResult.id());
+            }
+
+            return merged;
+        } catch (InterruptedException | ExecutionException | IOException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Whether this detector can generate the order for each round without looking at the results of earlier rounds,
+     * which may still be running, so that {@link #roundResult(int, IntFunction)} can run its rounds in parallel.
+     */
+    protected boolean supportsParallelRounds() {
+        return false;
+    }
+
+    /**
+     * Whether this detector should get the results for each round from {@link #roundResult(int, IntFunction)}, which
+     * runs upcoming rounds concurrently across a pool of runners.
+     */
+    protected boolean runsInParallel() {
+        return workers > 1 && supportsParallelRounds();
+    }
+
+    /**
+     * Gets the result of running the given round's order. Orders for the following rounds are generated in round
+     * order and submitted to the pool, so the results are the same regardless of which runner finishes first.
+     */
+    protected TestRunResult roundResult(final int round, final IntFunction<List<String>> roundOrders) throws Exception {
+        if (pendingRounds.isEmpty()) {
+            nextRoundToSubmit = round;
+        }
+
+        while (pendingRounds.size() < Math.min(pool().size(), Math.max(1, roundsRemaining))) {
+            pendingRounds.addLast(pool().submit(roundOrders.apply(nextRoundToSubmit)));
+            nextRoundToSubmit++;
+        }
+
+        return pendingRounds.removeFirst().get();
+    }
+
+    /**
+     * Runners separate from {@link #runner}, which stays free for the filters to use. Closed once all rounds are done.
+     */
+    protected RunnerPool pool() {
+        if (pool == null) {
+            pool = new RunnerPool(runner, baseDir, workers);
+        }
+
+        return pool;
+    }
+
+    /**
+     * The number of rounds left to run, including the current one.
+     */
+    protected int roundsRemaining() {
+        return roundsRemaining;
+    }
+
+    /**
+     * Whether rounds keep running until the time budget (detector.timeout) can not fit another round, rather than
+     * for a fixed number of rounds. The round count is still an upper bound. A timeout of 0 means no timeout, as it
+     * does for the rounds scheduler, so then only the round count applies.
+     */
+    public static boolean usesDeadlineScheduler() {
+        return "deadline".equals(Configuration.config().getProperty("dt.detector.scheduler", "rounds")) &&
+               Configuration.config().getProperty("detector.timeout", 6 * 3600.0) != 0;
+    }
+
+    private double elapsedSeconds() {
+        return (System.currentTimeMillis() - startTimeMs) / 1000.0;
+    }
+
+    /**
+     * The expected time of the next round: the mean time of the rounds so far to run their orders and to filter what
+     * they found (e.g., verifying those tests), averaged over all rounds, since most rounds find nothing to filter.
+     */
+    private double nextRoundSecondsEstimate() {
+        if (timedRounds == 0) {
+            return 0;
+        }
+
+        return (runSeconds + filterSeconds) / timedRounds;
+    }
+
+    /**
+     * The time held back from the budget so that, if the last round that fits finds something, there is still time
+     * to filter it: the mean filtering time of the rounds that found something.
+     */
+    private double filterReserveSeconds() {
+        return filteredRounds == 0 ? 0 : filterSeconds / filteredRounds;
+    }
+
+    /**
+     * How many more rounds are expected to fit in the remaining time budget, after reserving time to filter one
+     * round's findings. Always at least one until the first round has been timed, as long as there is any budget left.
+     */
+    private int roundsThatFit() {
+        final double remaining = budgetSeconds - elapsedSeconds() - filterReserveSeconds();
+
+        if (remaining <= 0) {
+            return 0;
+        }
+
+        final double estimate = nextRoundSecondsEstimate();
+
+        if (estimate <= 0) {
+            return 1;
+        }
+
+        return (int) Math.min(Integer.MAX_VALUE, Math.floor(remaining / estimate));
+    }
+
+    private String budgetReport() {
+        return String.format("%.1f of %.1f seconds used over %d rounds (%.1f seconds per round running orders, %.1f filtering)",
+                             elapsedSeconds(), budgetSeconds, timedRounds,
+                             timedRounds == 0 ? 0 : runSeconds / timedRounds,
+                             timedRounds == 0 ? 0 : filterSeconds / timedRounds);
+    }
+
+    /**
+     * Deletes the saved result of the run once it finishes, without waiting for it. Cancelling the run instead would
+     * not stop its test JVM, which would keep its runner busy and save its result like any other run.
+     */
+    protected void discardWhenDone(final CompletableFuture<TestRunResult> run) {
+        discards.add(run.whenComplete((result, e) -> {
+            if (result == null) {
+                Logger.getGlobal().log(Level.FINE, "Discarded run failed", e);
+                return;
+            }
+
+            try {
+                RunnerPathManager.discardResult(result.id());
+            } catch (IOException ex) {
+                Logger.getGlobal().log(Level.WARNING, "Could not discard the result of " + result.id(), ex);
+            }
+        }));
+    }
+
+    /**
+     * Closes the runners once all rounds are done, first waiting for the runs that are no longer needed (e.g., rounds
+     * submitted ahead of time) to finish and discarding them, so none is left running or leaves behind its result.
+     */
+    protected void closePool() {
+        if (shardPool != null) {
+            shardPool.close();
+            shardPool = null;
+        }
+
+        pendingRounds.forEach(this::discardWhenDone);
+        pendingRounds.clear();
+
+        for (final CompletableFuture<?> discard : discards) {
+            try {
+                discard.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException ignored) {
+                // Already logged when the run finished
+            }
+        }
+        discards.clear();
+
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+
+        filters.forEach(Filter::close);
+    }
+
     public DetectionRound makeDts(final TestRunResult intended, final TestRunResult revealed) {
         final List<DependentTest> result = DetectorUtil.flakyTests(intended, revealed, countOnlyFirstFailure);
 
+        final Stopwatch filterStopwatch = Stopwatch.createStarted();
+        final List<DependentTest> filtered = filter(result, absoluteRound.get()).collect(Collectors.toList());
+        if (!result.isEmpty()) {
+            lastFilterSeconds = filterStopwatch.elapsed(TimeUnit.NANOSECONDS) / 1E9;
+            filterSeconds += lastFilterSeconds;
+            filteredRounds++;
+        }
+
         return new DetectionRound(Collections.singletonList(revealed.id()),
                 result,
-                filter(result, absoluteRound.get()).collect(Collectors.toList()),
+                filtered,
                 stopwatch.elapsed(TimeUnit.NANOSECONDS) / 1E9);
     }
 
@@ -70,13 +348,18 @@ public abstract class ExecutingDetector implements Detector, VerbosePrinter {
 
     @Override
     public Stream<DependentTest> detect() {
+        if (workers > 1 && !supportsParallelRounds()) {
+            Logger.getGlobal().log(Level.INFO, String.format("%s runs its rounds one at a time, ignoring dt.detector.parallel.workers=%d",
+                                                             getClass().getSimpleName(), workers));
+        }
+
         return Streams.stream(new RunnerIterator());
     }
 
     private Stream<DependentTest> filter(List<DependentTest> dts, final int absoluteRound) {
         if (!dts.isEmpty()) {
             for (final Filter filter : filters) {
-                dts = dts.stream().filter(t -> filter.keep(t, absoluteRound)).collect(Collectors.toList());
+                dts = filter.keepAll(dts, absoluteRound);
             }
         }
 
@@ -94,8 +377,13 @@ public abstract class ExecutingDetector implements Detector, VerbosePrinter {
         System.out.println(); // End the progress line.
 
         print(String.format("[INFO] Found %d tests, writing list to %s and dt lists to %s\n", dtList.size(), listPath, dtListPath));
+        print(String.format("[INFO] Runner overhead: %s\n", RunOverhead.getGlobal()));
+        print(String.format("[INFO] Memory: %s\n", MemoryUsage.report()));
+        if (deadline) {
+            print(String.format("[INFO] Time budget: %s\n", budgetReport()));
+        }
 
-        Files.write(dtListPath, dtList.toString().getBytes());
+        dtList.save(dtListPath);
         Files.write(listPath, StringUtil.unlines(dtList.names()).getBytes());
     }
 
@@ -112,13 +400,22 @@ public abstract class ExecutingDetector implements Detector, VerbosePrinter {
 
         @Override
         public boolean hasNext() {
-            while (i < rounds && result.isEmpty()) {
+            while (i < rounds && result.isEmpty() && !outOfTime()) {
+                roundsRemaining = deadline ? Math.min(rounds - i, roundsThatFit()) : rounds - i;
                 generate();
             }
 
+            if (i >= rounds || outOfTime()) {
+                closePool();
+            }
+
             return !result.isEmpty();
         }
 
+        private boolean outOfTime() {
+            return deadline && roundsThatFit() == 0;
+        }
+
         private DetectionRound generateDetectionRound() {
             final Path path = PathManager.detectionRoundPath(name, absoluteRound.get());
 
@@ -133,12 +430,16 @@ public abstract class ExecutingDetector implements Detector, VerbosePrinter {
             final long stopTime = System.currentTimeMillis();
 
             try {
+                lastFilterSeconds = 0;
                 stopwatch.reset().start();
                 final DetectionRound result = results();
                 stopwatch.stop();
 
+                timedRounds++;
+                runSeconds += Math.max(0, stopwatch.elapsed(TimeUnit.NANOSECONDS) / 1E9 - lastFilterSeconds);
+
                 Files.createDirectories(path.getParent());
-                Files.write(path, result.toString().getBytes());
+                JsonCodec.write(path, result);
 
                 previousStopTimeMs = stopTime;
 
@@ -155,11 +456,19 @@ public abstract class ExecutingDetector implements Detector, VerbosePrinter {
 
             final double elapsed = previousStopTimeMs - startTimeMs;
             final double totalElapsed = (System.currentTimeMillis() - origStartTimeMs) / 1000.0;
-            final double estimate = elapsed / (i + 1) * (rounds - i - 1) / 1000;
+            final double estimate;
+            final int totalRounds;
+            if (deadline) {
+                estimate = Math.max(0, budgetSeconds - elapsedSeconds());
+                totalRounds = (int) Math.min(rounds, (long) i + 1 + roundsThatFit());
+            } else {
+                estimate = elapsed / (i + 1) * (rounds - i - 1) / 1000;
+                totalRounds = rounds;
+            }
 
             if (!round.filteredTests().dts().isEmpty()) {
                 System.out.println(
-                        buildResultString(round.filteredTests().size(), ++i, rounds,
+                        buildResultString(round.filteredTests().size(), ++i, totalRounds,
                                           elapsed / 1000, totalElapsed, estimate));
                 result.addAll(round.filteredTests().dts());
                 if (!roundsAreTotal) {
@@ -168,7 +477,7 @@ public abstract class ExecutingDetector implements Detector, VerbosePrinter {
                 startTimeMs = System.currentTimeMillis();
             } else {
                 System.out.println(
-                        buildResultString(round.filteredTests().size(), ++i, rounds,
+                        buildResultString(round.filteredTests().size(), ++i, totalRounds,
                                           elapsed / 1000, totalElapsed, estimate));
             }
 
@@ -31,8 +31,21 @@ public class OriginalDetector extends ExecutingDetector {
         addFilter(new UniqueFilter());
     }
 
+    @Override
+    protected boolean supportsParallelRounds() {
+        return true;
+    }
+
+    private List<String> roundOrder(final int round) {
+        return tests;
+    }
+
     @Override
     public DetectionRound results() throws Exception {
+        if (runsInParallel()) {
+            return makeDts(origResult, roundResult(absoluteRound.get(), this::roundOrder));
+        }
+
         return makeDts(origResult, runList(tests));
     }
 }
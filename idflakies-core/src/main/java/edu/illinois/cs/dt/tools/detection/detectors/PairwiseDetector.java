@@ -0,0 +1,54 @@
+package edu.illinois.cs.dt.tools.detection.detectors;
+
+import edu.illinois.cs.dt.tools.detection.DetectionRound;
+import edu.illinois.cs.dt.tools.detection.DetectorUtil;
+import edu.illinois.cs.dt.tools.detection.PairwiseShuffler;
+import edu.illinois.cs.dt.tools.detection.filters.ConfirmationFilter;
+import edu.illinois.cs.dt.tools.detection.filters.MinimizeFilter;
+import edu.illinois.cs.dt.tools.detection.filters.UniqueFilter;
+import edu.illinois.cs.dt.tools.runner.InstrumentingSmartRunner;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+
+import java.io.File;
+import java.util.List;
+
+public class PairwiseDetector extends ExecutingDetector {
+    private final List<String> originalOrder;
+    private final TestRunResult originalResults;
+
+    private final PairwiseShuffler shuffler;
+
+    public PairwiseDetector(final InstrumentingSmartRunner runner, final File baseDir,
+                            final int rounds, final List<String> tests,
+                            final String type) {
+        super(runner, baseDir, rounds, type);
+
+        this.originalOrder = tests;
+        this.shuffler = new PairwiseShuffler(tests);
+        this.originalResults = DetectorUtil.originalResults(originalOrder, runner);
+
+        addFilter(new ConfirmationFilter(type, tests, runner));
+        addFilter(new UniqueFilter());
+        addFilter(new MinimizeFilter(runner));
+    }
+
+    @Override
+    protected boolean supportsParallelRounds() {
+        return true;
+    }
+
+    private List<String> roundOrder(final int round) {
+        return shuffler.nextOrder();
+    }
+
+    @Override
+    public DetectionRound results() throws Exception {
+        final TestRunResult result = runsInParallel() ?
+                roundResult(absoluteRound.get(), this::roundOrder) : runList(shuffler.nextOrder());
+
+        // Only now that the order has run does its coverage count across runs
+        shuffler.markRun(result.testOrder());
+
+        return makeDts(originalResults, result);
+    }
+}
@@ -2,15 +2,20 @@ package edu.illinois.cs.dt.tools.detection.detectors;
 
 import edu.illinois.cs.dt.tools.detection.DetectionRound;
 import edu.illinois.cs.dt.tools.detection.DetectorUtil;
+import edu.illinois.cs.dt.tools.detection.OrderIndex;
 import edu.illinois.cs.dt.tools.detection.TestShuffler;
 import edu.illinois.cs.dt.tools.detection.filters.ConfirmationFilter;
+import edu.illinois.cs.dt.tools.detection.filters.MinimizeFilter;
 import edu.illinois.cs.dt.tools.detection.filters.UniqueFilter;
 import edu.illinois.cs.dt.tools.runner.InstrumentingSmartRunner;
+import edu.illinois.cs.testrunner.configuration.Configuration;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
 import edu.illinois.cs.testrunner.runner.Runner;
 
 import java.io.File;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public class RandomDetector extends ExecutingDetector {
     private final List<String> tests;
@@ -20,33 +25,108 @@ public class RandomDetector extends ExecutingDetector {
 
     private final TestShuffler testShuffler;
 
+    // Only used when pipelined (dt.detector.pipelined=true)
+    private final boolean pipelined = Configuration.config().getProperty("dt.detector.pipelined", false);
+    private List<String> speculativeOrder;
+    private CompletableFuture<TestRunResult> speculativeRun;
+
     public RandomDetector(final String type, final File baseDir, final Runner runner, final int rounds, final List<String> tests) {
         super(runner, baseDir, rounds, type);
 
         this.tests = tests;
 
         this.testShuffler = new TestShuffler(type, rounds, tests, baseDir);
+        if (OrderIndex.enabled()) {
+            testShuffler.withOrderIndex(OrderIndex.forClasspath(runner.classpath()));
+        }
         this.origResult = DetectorUtil.originalResults(tests, runner);
 
         // Filters to be applied in order
-        if (runner instanceof InstrumentingSmartRunner) {
-            addFilter(new ConfirmationFilter(name, tests, (InstrumentingSmartRunner) runner));
-        } else {
-            addFilter(new ConfirmationFilter(name, tests, InstrumentingSmartRunner.fromRunner(runner, baseDir)));
-        }
+        final InstrumentingSmartRunner instrumentingRunner = runner instanceof InstrumentingSmartRunner ?
+                (InstrumentingSmartRunner) runner : InstrumentingSmartRunner.fromRunner(runner, baseDir);
 
+        addFilter(new ConfirmationFilter(name, tests, instrumentingRunner));
         addFilter(new UniqueFilter());
+        addFilter(new MinimizeFilter(instrumentingRunner));
+    }
+
+    @Override
+    protected boolean supportsParallelRounds() {
+        return true;
+    }
+
+    private List<String> roundOrder(final int round) {
+        // Reversing the last passing order needs the previous round's results, so parallel rounds always shuffle
+        return testShuffler.shuffledOrder(round);
     }
 
     @Override
     public DetectionRound results() throws Exception {
-        lastRandomResult = runList(testShuffler.shuffledOrder(absoluteRound.get(),
-                                                              lastRandomResult,
-                                                              // if last detection round didn't find any *new* OD test, then reverse the last (likely passing) order
-                                                              lastRandomDetectionRound == null || lastRandomResult == null || lastRandomDetectionRound.filteredTests().size() != 0));
+        // if last detection round didn't find any *new* OD test, then reverse the last (likely passing) order
+        final boolean useRevPassing =
+                lastRandomDetectionRound == null || lastRandomResult == null || lastRandomDetectionRound.filteredTests().size() != 0;
+
+        if (runsInParallel()) {
+            lastRandomResult = roundResult(absoluteRound.get(), this::roundOrder);
+        } else if (pipelined) {
+            lastRandomResult = pipelinedResult(useRevPassing);
+            speculate();
+        } else {
+            lastRandomResult = runList(testShuffler.shuffledOrder(absoluteRound.get(), lastRandomResult, useRevPassing));
+        }
         // if we want to reverse a run with no failures or errors, then replace the line above with the following
         // lastRandomResult.results().values().stream().anyMatch(testResult -> testResult.result() == Result.FAILURE || testResult.result() == Result.ERROR)
+        // Only orders that actually ran go in the order index
+        testShuffler.markRun(lastRandomResult.testOrder());
         lastRandomDetectionRound = makeDts(origResult, lastRandomResult);
         return lastRandomDetectionRound;
     }
+
+    /**
+     * Uses the speculative run of the reversed order if the last round turned out not to find anything new.
+     * Otherwise, runs a newly shuffled order instead, right away, and discards the speculative run once it finishes.
+     */
+    private TestRunResult pipelinedResult(final boolean useRevPassing) throws Exception {
+        final CompletableFuture<TestRunResult> speculative = speculativeRun;
+        speculativeRun = null;
+
+        if (speculative != null) {
+            if (!useRevPassing) {
+                testShuffler.markSeen(speculativeOrder);
+                return speculative.get();
+            }
+
+            discardWhenDone(speculative);
+        }
+
+        return runList(testShuffler.shuffledOrder(absoluteRound.get(), lastRandomResult, useRevPassing));
+    }
+
+    /**
+     * Starts running the reverse of the order that was just run on a separate runner, assuming that the
+     * verification of this round's tests will not confirm anything new. The filters run in the meantime.
+     */
+    private void speculate() {
+        if (roundsRemaining() <= 1) {
+            return;
+        }
+
+        final Optional<List<String>> reversed = testShuffler.reversedOrder(lastRandomResult);
+
+        if (reversed.isPresent()) {
+            speculativeOrder = reversed.get();
+            speculativeRun = pool().submit(speculativeOrder);
+        }
+    }
+
+    @Override
+    protected void closePool() {
+        // The rounds can end (e.g., when out of time) with a speculative run that no round will use
+        if (speculativeRun != null) {
+            discardWhenDone(speculativeRun);
+            speculativeRun = null;
+        }
+
+        super.closePool();
+    }
 }
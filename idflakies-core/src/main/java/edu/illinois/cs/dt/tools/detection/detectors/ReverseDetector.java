@@ -4,6 +4,7 @@ import edu.illinois.cs.dt.tools.detection.DetectionRound;
 import edu.illinois.cs.dt.tools.detection.DetectorUtil;
 import edu.illinois.cs.dt.tools.detection.TestShuffler;
 import edu.illinois.cs.dt.tools.detection.filters.ConfirmationFilter;
+import edu.illinois.cs.dt.tools.detection.filters.MinimizeFilter;
 import edu.illinois.cs.dt.tools.detection.filters.UniqueFilter;
 import edu.illinois.cs.dt.tools.runner.InstrumentingSmartRunner;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
@@ -26,12 +27,12 @@ public class ReverseDetector extends ExecutingDetector {
         testShuffler = new TestShuffler(name, rounds, tests, baseDir);
 
         // Filters to be applied in order
-        if (runner instanceof InstrumentingSmartRunner) {
-            addFilter(new ConfirmationFilter(name, tests, (InstrumentingSmartRunner) runner));
-        } else {
-            addFilter(new ConfirmationFilter(name, tests, InstrumentingSmartRunner.fromRunner(runner, baseDir)));
-        }
+        final InstrumentingSmartRunner instrumentingRunner = runner instanceof InstrumentingSmartRunner ?
+                (InstrumentingSmartRunner) runner : InstrumentingSmartRunner.fromRunner(runner, baseDir);
+
+        addFilter(new ConfirmationFilter(name, tests, instrumentingRunner));
         addFilter(new UniqueFilter());
+        addFilter(new MinimizeFilter(instrumentingRunner));
     }
 
     @Override
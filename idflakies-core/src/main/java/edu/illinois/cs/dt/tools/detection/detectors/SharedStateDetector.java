@@ -0,0 +1,55 @@
+package edu.illinois.cs.dt.tools.detection.detectors;
+
+import edu.illinois.cs.dt.tools.detection.DetectionRound;
+import edu.illinois.cs.dt.tools.detection.DetectorUtil;
+import edu.illinois.cs.dt.tools.detection.SharedStateShuffler;
+import edu.illinois.cs.dt.tools.detection.filters.ConfirmationFilter;
+import edu.illinois.cs.dt.tools.detection.filters.MinimizeFilter;
+import edu.illinois.cs.dt.tools.detection.filters.UniqueFilter;
+import edu.illinois.cs.dt.tools.detection.sharedstate.StaticStateAnalysis;
+import edu.illinois.cs.dt.tools.runner.InstrumentingSmartRunner;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+
+import java.io.File;
+import java.util.List;
+
+public class SharedStateDetector extends ExecutingDetector {
+    private final List<String> originalOrder;
+    private final TestRunResult originalResults;
+
+    private final SharedStateShuffler shuffler;
+
+    public SharedStateDetector(final InstrumentingSmartRunner runner, final File baseDir,
+                               final int rounds, final List<String> tests,
+                               final String type) {
+        super(runner, baseDir, rounds, type);
+
+        this.originalOrder = tests;
+        this.shuffler = new SharedStateShuffler(tests, StaticStateAnalysis.fromClasspath(runner.classpath()));
+        this.originalResults = DetectorUtil.originalResults(originalOrder, runner);
+
+        addFilter(new ConfirmationFilter(type, tests, runner));
+        addFilter(new UniqueFilter());
+        addFilter(new MinimizeFilter(runner));
+    }
+
+    @Override
+    protected boolean supportsParallelRounds() {
+        return true;
+    }
+
+    private List<String> roundOrder(final int round) {
+        return shuffler.nextOrder();
+    }
+
+    @Override
+    public DetectionRound results() throws Exception {
+        if (runsInParallel()) {
+            return makeDts(originalResults, roundResult(absoluteRound.get(), this::roundOrder));
+        }
+
+        final List<String> order = shuffler.nextOrder();
+
+        return makeDts(originalResults, runList(order));
+    }
+}
@@ -4,6 +4,7 @@ import edu.illinois.cs.dt.tools.detection.DetectionRound;
 import edu.illinois.cs.dt.tools.detection.DetectorUtil;
 import edu.illinois.cs.dt.tools.detection.SmartShuffler;
 import edu.illinois.cs.dt.tools.detection.filters.ConfirmationFilter;
+import edu.illinois.cs.dt.tools.detection.filters.MinimizeFilter;
 import edu.illinois.cs.dt.tools.detection.filters.UniqueFilter;
 import edu.illinois.cs.dt.tools.runner.InstrumentingSmartRunner;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
@@ -28,11 +29,25 @@ public class SmartShuffleDetector extends ExecutingDetector {
 
         addFilter(new ConfirmationFilter(type, tests, runner));
         addFilter(new UniqueFilter());
+        addFilter(new MinimizeFilter(runner));
+    }
+
+    @Override
+    protected boolean supportsParallelRounds() {
+        return true;
+    }
+
+    private List<String> roundOrder(final int round) {
+        return shuffler.order(round);
     }
 
     @Override
     public DetectionRound results() throws Exception {
-        final List<String> order = shuffler.nextOrder();
+        if (runsInParallel()) {
+            return makeDts(originalResults, roundResult(absoluteRound.get(), this::roundOrder));
+        }
+
+        final List<String> order = shuffler.order(absoluteRound.get());
 
         return makeDts(originalResults, runList(order));
     }
@@ -1,17 +1,25 @@
 package edu.illinois.cs.dt.tools.detection.filters;
 
-import com.google.gson.Gson;
-import com.reedoei.eunomia.io.files.FileUtil;
 import edu.illinois.cs.dt.tools.detection.DetectionRound;
+import edu.illinois.cs.dt.tools.detection.RoundRandom;
 import edu.illinois.cs.dt.tools.runner.InstrumentingSmartRunner;
+import edu.illinois.cs.dt.tools.runner.JsonCodec;
+import edu.illinois.cs.dt.tools.runner.RunnerPool;
 import edu.illinois.cs.dt.tools.runner.data.DependentTest;
 import edu.illinois.cs.dt.tools.runner.data.DependentTestType;
+import edu.illinois.cs.dt.tools.runner.data.VerificationBatch;
+import edu.illinois.cs.dt.tools.utility.OrderFingerprint;
 import edu.illinois.cs.dt.tools.utility.PathManager;
+import edu.illinois.cs.testrunner.configuration.Configuration;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
 
@@ -19,10 +27,18 @@ public class ConfirmationFilter implements Filter {
     private static final double DEPENDENT_CONFIRMATION_SAMPLING_RATE = 0.2;
     private static final double FLAKY_CONFIRMATION_SAMPLING_RATE = 0.2;
 
+    // "sampling" re-verifies known tests at the fixed rates above; "bayesian" only verifies tests until their
+    // classification reaches the confidence (see ConfirmationPosteriors)
+    private static final boolean BAYESIAN = "bayesian".equals(Configuration.config().getProperty("dt.confirmation.policy", "sampling"));
+    private static final double CONFIDENCE = Configuration.config().getProperty("dt.confirmation.confidence", 0.9);
+
     private final Set<String> knownFlaky;
     private final Set<String> knownDep;
     private final String detectorType;
     private final InstrumentingSmartRunner runner;
+    private RunnerPool pool;
+    private final Random random;
+    private final ConfirmationPosteriors posteriors;
 
     public ConfirmationFilter(final String detectorType,
                               final List<String> tests,
@@ -42,7 +58,7 @@ public class ConfirmationFilter implements Filter {
         try {
             Files.list(PathManager.detectionResults().resolve("flaky")).forEach(p -> {
                 try {
-                    final DetectionRound round = new Gson().fromJson(FileUtil.readFile(p), DetectionRound.class);
+                    final DetectionRound round = JsonCodec.read(p, DetectionRound.class);
 
                     for (final DependentTest dependentTest : round.filteredTests().dts()) {
                         knownFlaky.add(dependentTest.name());
@@ -50,33 +66,127 @@ public class ConfirmationFilter implements Filter {
                 } catch (Exception ignored) {}
             });
         } catch (IOException ignored) {}
+
+        this.random = new Random(RoundRandom.seed());
+
+        if (BAYESIAN) {
+            this.posteriors = ConfirmationPosteriors.load(PathManager.detectionResults().resolve("confirmation-posteriors.json"));
+
+            for (final String test : tests) {
+                if (posteriors.hasEvidence(test) && posteriors.odProbability(test) == 0) {
+                    knownFlaky.add(test);
+                }
+            }
+        } else {
+            this.posteriors = null;
+        }
     }
 
     @Override
     public boolean keep(final DependentTest dependentTest, final int absoluteRound) {
+        final boolean isFlaky = knownFlaky.contains(dependentTest.name());
+        final Optional<String> verifyType = verifyType(dependentTest);
+
+        if (verifyType.isPresent()) {
+            final boolean kept = confirmation(isFlaky, verify(verifyType.get(), dependentTest, absoluteRound), dependentTest);
+            savePosteriors();
+            return kept;
+        }
+
+        return true;
+    }
+
+    /**
+     * Verifies all of the tests from the round that need it together, so identical orders only run once
+     * and the orders can run concurrently (dt.detector.parallel.workers).
+     */
+    @Override
+    public List<DependentTest> keepAll(final List<DependentTest> dependentTests, final int absoluteRound) {
+        final VerificationBatch batch = new VerificationBatch();
+        final Map<DependentTest, Boolean> toConfirm = new LinkedHashMap<>();
+
+        for (final DependentTest dependentTest : dependentTests) {
+            final boolean isFlaky = knownFlaky.contains(dependentTest.name());
+            final Optional<String> verifyType = verifyType(dependentTest);
+
+            if (verifyType.isPresent()) {
+                toConfirm.put(dependentTest, isFlaky);
+                batch.add(dependentTest, PathManager.filterPath(detectorType, verifyType.get(), absoluteRound));
+            }
+        }
+
+        final Map<DependentTest, Boolean> verified =
+                batch.size() == 0 ? new LinkedHashMap<>() : batch.run(runner, pool());
+
+        final List<DependentTest> kept = new ArrayList<>();
+
+        for (final DependentTest dependentTest : dependentTests) {
+            // A test with no verification runs (dt.verify.rounds=0) counts as verified, as with no rounds failing
+            if (!toConfirm.containsKey(dependentTest) ||
+                confirmation(toConfirm.get(dependentTest), verified.getOrDefault(dependentTest, true), dependentTest)) {
+                kept.add(dependentTest);
+            }
+        }
+
+        savePosteriors();
+
+        return kept;
+    }
+
+    /**
+     * The type of verification to run for this test, if it needs to be verified at all.
+     */
+    private Optional<String> verifyType(final DependentTest dependentTest) {
+        if (BAYESIAN) {
+            return bayesianVerifyType(dependentTest);
+        }
+
         if (knownFlaky.contains(dependentTest.name())) {
-            if (new Random().nextDouble() < FLAKY_CONFIRMATION_SAMPLING_RATE) {
-                return confirmation(true, "confirmation-sampling", dependentTest, absoluteRound);
+            if (random.nextDouble() < FLAKY_CONFIRMATION_SAMPLING_RATE) {
+                return Optional.of("confirmation-sampling");
             }
 
             // This test is known to be flaky, so set its type to NOD but still keep the test
             dependentTest.setType(DependentTestType.NOD);
-            return true;
+            return Optional.empty();
         } else if (knownDep.contains(dependentTest.name())) {
-            if (new Random().nextDouble() < DEPENDENT_CONFIRMATION_SAMPLING_RATE) {
-                return confirmation(false, "confirmation-sampling", dependentTest, absoluteRound);
+            if (random.nextDouble() < DEPENDENT_CONFIRMATION_SAMPLING_RATE) {
+                return Optional.of("confirmation-sampling");
             }
 
-            // Known dependent, so return true
-            return true;
+            // Known dependent, so keep it without verifying
+            return Optional.empty();
+        } else {
+            return Optional.of("verify");
+        }
+    }
+
+    /**
+     * Verifies tests until the posteriors are confident enough of whether they are OD or NOD.
+     */
+    private Optional<String> bayesianVerifyType(final DependentTest dependentTest) {
+        if (knownFlaky.contains(dependentTest.name())) {
+            dependentTest.setType(DependentTestType.NOD);
+            return Optional.empty();
+        } else if (posteriors.confidence(dependentTest.name()) >= CONFIDENCE) {
+            return Optional.empty();
+        } else if (posteriors.hasEvidence(dependentTest.name())) {
+            return Optional.of("confirmation-sampling");
         } else {
-            return confirmation(false, "verify", dependentTest, absoluteRound);
+            return Optional.of("verify");
         }
     }
 
-    private boolean confirmation(final boolean isFlaky, final String verifyType,
-                                 final DependentTest dependentTest, final int absoluteRound) {
-        final boolean confirmed = verify(verifyType, dependentTest, absoluteRound);
+    private void savePosteriors() {
+        if (posteriors != null) {
+            posteriors.save();
+        }
+    }
+
+    private boolean confirmation(final boolean isFlaky, final boolean confirmed, final DependentTest dependentTest) {
+        if (posteriors != null) {
+            posteriors.record(dependentTest.name(), OrderFingerprint.of(dependentTest.revealed().order()).toString(), confirmed);
+        }
 
         // if it's flaky, we shouldn't put it back into the dep set
         if (!isFlaky) {
@@ -101,4 +211,20 @@ public class ConfirmationFilter implements Filter {
     private boolean verify(final String verifyType, final DependentTest dependentTest, final int absoluteRound) {
         return dependentTest.verify(runner, PathManager.filterPath(detectorType, verifyType, absoluteRound));
     }
+
+    private RunnerPool pool() {
+        if (pool == null && RunnerPool.workers() > 1) {
+            pool = new RunnerPool(runner, runner.baseDir());
+        }
+
+        return pool;
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
 }
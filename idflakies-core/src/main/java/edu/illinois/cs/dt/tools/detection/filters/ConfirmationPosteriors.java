@@ -0,0 +1,121 @@
+package edu.illinois.cs.dt.tools.detection.filters;
+
+import com.google.gson.reflect.TypeToken;
+import edu.illinois.cs.dt.tools.runner.JsonCodec;
+import edu.illinois.cs.dt.tools.utility.Level;
+import edu.illinois.cs.dt.tools.utility.Logger;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * How often verifying each dependent test confirmed it, per order prefix it was found with, and how confident that
+ * makes us that the test is order-dependent (OD) rather than non-order-dependent (NOD).
+ *
+ * The two hypotheses are that verification always reproduces the test's results (OD), or that it reproduces them with
+ * some unknown probability, uniform on [0, 1] (NOD). Starting from even odds, after s confirmations and f failures:
+ *
+ *     P(OD) = 1 / (1 + B(s + 1, f + 1))  if f = 0, and 0 otherwise,
+ *
+ * where B(s + 1, 1) = 1 / (s + 1). So one failure makes a test NOD, and each confirmation makes OD more likely.
+ * Counts from all of a test's prefixes are combined, since OD/NOD is a property of the test.
+ */
+public class ConfirmationPosteriors {
+    public static class Counts {
+        private int confirmed = 0;
+        private int failed = 0;
+
+        public int confirmed() {
+            return confirmed;
+        }
+
+        public int failed() {
+            return failed;
+        }
+    }
+
+    private static final Type COUNTS_TYPE = new TypeToken<Map<String, Map<String, Counts>>>(){}.getType();
+
+    public static ConfirmationPosteriors load(final Path path) {
+        final ConfirmationPosteriors posteriors = new ConfirmationPosteriors(path);
+
+        if (Files.exists(path)) {
+            try {
+                final Map<String, Map<String, Counts>> counts =
+                        JsonCodec.read(path, COUNTS_TYPE);
+
+                if (counts != null) {
+                    counts.forEach((test, prefixes) -> posteriors.counts.put(test, new TreeMap<>(prefixes)));
+                }
+            } catch (IOException | RuntimeException e) {
+                Logger.getGlobal().log(Level.WARNING, "Could not read confirmation posteriors from " + path, e);
+            }
+        }
+
+        return posteriors;
+    }
+
+    private final Path path;
+    // Test name -> order prefix hash -> counts
+    private final Map<String, Map<String, Counts>> counts = new TreeMap<>();
+
+    private ConfirmationPosteriors(final Path path) {
+        this.path = path;
+    }
+
+    public boolean hasEvidence(final String testName) {
+        return counts.containsKey(testName);
+    }
+
+    public void record(final String testName, final String prefixHash, final boolean confirmed) {
+        final Counts prefixCounts = counts.computeIfAbsent(testName, t -> new TreeMap<>())
+                .computeIfAbsent(prefixHash, p -> new Counts());
+
+        if (confirmed) {
+            prefixCounts.confirmed++;
+        } else {
+            prefixCounts.failed++;
+        }
+    }
+
+    /**
+     * The probability that the test is OD, given every verification of it so far.
+     */
+    public double odProbability(final String testName) {
+        int confirmed = 0;
+        int failed = 0;
+
+        for (final Counts prefixCounts : counts.getOrDefault(testName, new HashMap<>()).values()) {
+            confirmed += prefixCounts.confirmed;
+            failed += prefixCounts.failed;
+        }
+
+        if (failed > 0) {
+            return 0;
+        }
+
+        return (confirmed + 1.0) / (confirmed + 2.0);
+    }
+
+    /**
+     * How sure we are of whichever classification is more likely.
+     */
+    public double confidence(final String testName) {
+        final double od = odProbability(testName);
+        return Math.max(od, 1 - od);
+    }
+
+    public void save() {
+        try {
+            Files.createDirectories(path.getParent());
+            JsonCodec.write(path, counts, COUNTS_TYPE);
+        } catch (IOException e) {
+            Logger.getGlobal().log(Level.WARNING, "Could not write confirmation posteriors to " + path, e);
+        }
+    }
+}
@@ -2,6 +2,23 @@ package edu.illinois.cs.dt.tools.detection.filters;
 
 import edu.illinois.cs.dt.tools.runner.data.DependentTest;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 public interface Filter {
     boolean keep(final DependentTest dependentTest, final int absoluteRound);
+
+    /**
+     * Filters all of the tests found in a round at once. Filters that can do their work for many tests
+     * together (e.g., verification runs) should override this.
+     */
+    default List<DependentTest> keepAll(final List<DependentTest> dependentTests, final int absoluteRound) {
+        return dependentTests.stream().filter(t -> keep(t, absoluteRound)).collect(Collectors.toList());
+    }
+
+    /**
+     * Releases anything the filter holds on to (e.g., runners), once the detector is done with it.
+     */
+    default void close() {
+    }
 }
@@ -0,0 +1,49 @@
+package edu.illinois.cs.dt.tools.detection.filters;
+
+import edu.illinois.cs.dt.tools.runner.InstrumentingSmartRunner;
+import edu.illinois.cs.dt.tools.runner.RunnerPool;
+import edu.illinois.cs.dt.tools.runner.data.DependentTest;
+import edu.illinois.cs.dt.tools.runner.data.DependentTestType;
+import edu.illinois.cs.dt.tools.runner.data.OrderMinimizer;
+import edu.illinois.cs.testrunner.configuration.Configuration;
+
+/**
+ * Shrinks the orders of each order-dependent test that gets through the earlier filters to the few tests that matter
+ * (see {@link OrderMinimizer}), so the flaky lists show the polluters directly and later verification runs are short.
+ * Never removes any tests.
+ */
+public class MinimizeFilter implements Filter {
+    private static final boolean MINIMIZE = Configuration.config().getProperty("dt.minimize", false);
+
+    private final InstrumentingSmartRunner runner;
+    private RunnerPool pool;
+
+    public MinimizeFilter(final InstrumentingSmartRunner runner) {
+        this.runner = runner;
+    }
+
+    @Override
+    public boolean keep(final DependentTest dependentTest, final int absoluteRound) {
+        if (MINIMIZE && dependentTest.type() == DependentTestType.OD && dependentTest.minimized() == null) {
+            new OrderMinimizer(runner, pool()).minimize(dependentTest).ifPresent(dependentTest::setMinimized);
+        }
+
+        return true;
+    }
+
+    private RunnerPool pool() {
+        if (pool == null && RunnerPool.workers() > 1) {
+            pool = new RunnerPool(runner, runner.baseDir());
+        }
+
+        return pool;
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package edu.illinois.cs.dt.tools.detection.sharedstate;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads just enough of a class file to find which static fields its methods read and write, which other classes it
+ * refers to, and which methods it calls. Class names use dots (e.g., java.lang.System).
+ */
+public class ClassFileScanner {
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+
+    private static final int GETSTATIC = 0xb2;
+    private static final int PUTSTATIC = 0xb3;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int INVOKEINTERFACE = 0xb9;
+    private static final int NEW = 0xbb;
+    private static final int TABLESWITCH = 0xaa;
+    private static final int LOOKUPSWITCH = 0xab;
+    private static final int WIDE = 0xc4;
+    private static final int IINC = 0x84;
+
+    // Length of each instruction, including the opcode. 0 means variable length or unused
+    private static final int[] INSTRUCTION_LENGTHS = new int[256];
+
+    static {
+        for (int op = 0x00; op <= 0xc9; op++) {
+            INSTRUCTION_LENGTHS[op] = 1;
+        }
+        INSTRUCTION_LENGTHS[0x10] = 2; // bipush
+        INSTRUCTION_LENGTHS[0x11] = 3; // sipush
+        INSTRUCTION_LENGTHS[0x12] = 2; // ldc
+        INSTRUCTION_LENGTHS[0x13] = 3; // ldc_w
+        INSTRUCTION_LENGTHS[0x14] = 3; // ldc2_w
+        for (int op = 0x15; op <= 0x19; op++) {
+            INSTRUCTION_LENGTHS[op] = 2; // xload
+        }
+        for (int op = 0x36; op <= 0x3a; op++) {
+            INSTRUCTION_LENGTHS[op] = 2; // xstore
+        }
+        INSTRUCTION_LENGTHS[IINC] = 3;
+        for (int op = 0x99; op <= 0xa8; op++) {
+            INSTRUCTION_LENGTHS[op] = 3; // if*, goto, jsr
+        }
+        INSTRUCTION_LENGTHS[0xa9] = 2; // ret
+        INSTRUCTION_LENGTHS[TABLESWITCH] = 0;
+        INSTRUCTION_LENGTHS[LOOKUPSWITCH] = 0;
+        for (int op = 0xb2; op <= 0xb8; op++) {
+            INSTRUCTION_LENGTHS[op] = 3; // field accesses, invokevirtual/special/static
+        }
+        INSTRUCTION_LENGTHS[INVOKEINTERFACE] = 5;
+        INSTRUCTION_LENGTHS[0xba] = 5; // invokedynamic
+        INSTRUCTION_LENGTHS[NEW] = 3;
+        INSTRUCTION_LENGTHS[0xbc] = 2; // newarray
+        INSTRUCTION_LENGTHS[0xbd] = 3; // anewarray
+        INSTRUCTION_LENGTHS[0xc0] = 3; // checkcast
+        INSTRUCTION_LENGTHS[0xc1] = 3; // instanceof
+        INSTRUCTION_LENGTHS[WIDE] = 0;
+        INSTRUCTION_LENGTHS[0xc5] = 4; // multianewarray
+        INSTRUCTION_LENGTHS[0xc6] = 3; // ifnull
+        INSTRUCTION_LENGTHS[0xc7] = 3; // ifnonnull
+        INSTRUCTION_LENGTHS[0xc8] = 5; // goto_w
+        INSTRUCTION_LENGTHS[0xc9] = 5; // jsr_w
+    }
+
+    /**
+     * A static field declared by this class.
+     */
+    public static class StaticField {
+        private final String name;
+        private final boolean isFinal;
+        private final boolean isReference;
+
+        private StaticField(final String name, final boolean isFinal, final boolean isReference) {
+            this.name = name;
+            this.isFinal = isFinal;
+            this.isReference = isReference;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public boolean isFinal() {
+            return isFinal;
+        }
+
+        /**
+         * Whether the field holds an object (or array), rather than a primitive or a String, so its contents can
+         * change even if the field is final.
+         */
+        public boolean isReference() {
+            return isReference;
+        }
+    }
+
+    private final String className;
+    private final String superName;
+    private final Map<String, StaticField> staticFields = new HashMap<>();
+
+    // Fields are named "owner.field"; methods are named "owner.method"
+    private final Set<String> staticReads = new LinkedHashSet<>();
+    private final Set<String> staticWrites = new LinkedHashSet<>();
+    private final Set<String> referencedClasses = new LinkedHashSet<>();
+    private final Set<String> calledMethods = new LinkedHashSet<>();
+
+    private final Object[] constants;
+    private final int[] tags;
+
+    public ClassFileScanner(final byte[] classFile) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+
+        if (in.readInt() != 0xCAFEBABE) {
+            throw new IOException("Not a class file");
+        }
+        in.readUnsignedShort(); // minor version
+        in.readUnsignedShort(); // major version
+
+        final int constantPoolCount = in.readUnsignedShort();
+        this.constants = new Object[constantPoolCount];
+        this.tags = new int[constantPoolCount];
+        readConstantPool(in, constantPoolCount);
+
+        in.readUnsignedShort(); // access flags
+        this.className = classAt(in.readUnsignedShort());
+        final int superIndex = in.readUnsignedShort();
+        this.superName = superIndex == 0 ? null : classAt(superIndex);
+        if (superName != null) {
+            referencedClasses.add(superName);
+        }
+
+        final int interfaceCount = in.readUnsignedShort();
+        for (int i = 0; i < interfaceCount; i++) {
+            referencedClasses.add(classAt(in.readUnsignedShort()));
+        }
+
+        final int fieldCount = in.readUnsignedShort();
+        for (int i = 0; i < fieldCount; i++) {
+            final int access = in.readUnsignedShort();
+            final String name = utf8At(in.readUnsignedShort());
+            final String descriptor = utf8At(in.readUnsignedShort());
+            skipAttributes(in);
+
+            if ((access & ACC_STATIC) != 0) {
+                final boolean isReference = (descriptor.startsWith("L") || descriptor.startsWith("["))
+                        && !descriptor.equals("Ljava/lang/String;");
+                staticFields.put(name, new StaticField(name, (access & ACC_FINAL) != 0, isReference));
+            }
+        }
+
+        final int methodCount = in.readUnsignedShort();
+        for (int i = 0; i < methodCount; i++) {
+            in.readUnsignedShort(); // access flags
+            final String name = utf8At(in.readUnsignedShort());
+            in.readUnsignedShort(); // descriptor
+
+            final int attributeCount = in.readUnsignedShort();
+            for (int j = 0; j < attributeCount; j++) {
+                final String attributeName = utf8At(in.readUnsignedShort());
+                final int length = in.readInt();
+
+                if ("Code".equals(attributeName)) {
+                    final byte[] attribute = new byte[length];
+                    in.readFully(attribute);
+                    // Static initializers only run once, when the class is first used, regardless of the order
+                    if (!"<clinit>".equals(name)) {
+                        scanCode(attribute);
+                    }
+                } else {
+                    in.skipBytes(length);
+                }
+            }
+        }
+    }
+
+    public String className() {
+        return className;
+    }
+
+    public String superName() {
+        return superName;
+    }
+
+    public Map<String, StaticField> staticFields() {
+        return staticFields;
+    }
+
+    public Set<String> staticReads() {
+        return staticReads;
+    }
+
+    public Set<String> staticWrites() {
+        return staticWrites;
+    }
+
+    public Set<String> referencedClasses() {
+        return referencedClasses;
+    }
+
+    public Set<String> calledMethods() {
+        return calledMethods;
+    }
+
+    private void readConstantPool(final DataInputStream in, final int count) throws IOException {
+        for (int i = 1; i < count; i++) {
+            final int tag = in.readUnsignedByte();
+            tags[i] = tag;
+
+            switch (tag) {
+                case 1: // Utf8
+                    constants[i] = in.readUTF();
+                    break;
+                case 7: // Class
+                case 8: // String
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    constants[i] = in.readUnsignedShort();
+                    break;
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                    constants[i] = new int[] { in.readUnsignedShort(), in.readUnsignedShort() };
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                    in.skipBytes(4);
+                    break;
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    in.skipBytes(4);
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    in.skipBytes(8);
+                    i++; // Takes up two entries
+                    break;
+                case 15: // MethodHandle
+                    in.skipBytes(3);
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag + " at " + i);
+            }
+        }
+    }
+
+    private String utf8At(final int index) {
+        return (String) constants[index];
+    }
+
+    private String classAt(final int index) {
+        return utf8At((Integer) constants[index]).replace('/', '.');
+    }
+
+    /**
+     * The owner and name of the field or method that the constant refers to, as "owner.name".
+     */
+    private String memberAt(final int index) {
+        final int[] ref = (int[]) constants[index];
+        final int[] nameAndType = (int[]) constants[ref[1]];
+        return classAt(ref[0]) + "." + utf8At(nameAndType[0]);
+    }
+
+    private static void skipAttributes(final DataInputStream in) throws IOException {
+        final int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            in.readUnsignedShort();
+            in.skipBytes(in.readInt());
+        }
+    }
+
+    private static int u2(final byte[] bytes, final int offset) {
+        return ((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF);
+    }
+
+    private static int s4(final byte[] bytes, final int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+
+    private void scanCode(final byte[] attribute) {
+        // max_stack (2), max_locals (2), code_length (4), then the code itself
+        final int codeLength = s4(attribute, 4);
+        final int start = 8;
+        final int end = start + codeLength;
+
+        int pc = start;
+        while (pc < end) {
+            final int opcode = attribute[pc] & 0xFF;
+
+            switch (opcode) {
+                case GETSTATIC:
+                    staticReads.add(memberAt(u2(attribute, pc + 1)));
+                    referencedClasses.add(ownerOf(u2(attribute, pc + 1)));
+                    break;
+                case PUTSTATIC:
+                    staticWrites.add(memberAt(u2(attribute, pc + 1)));
+                    referencedClasses.add(ownerOf(u2(attribute, pc + 1)));
+                    break;
+                case INVOKEVIRTUAL:
+                case INVOKESPECIAL:
+                case INVOKESTATIC:
+                case INVOKEINTERFACE:
+                    calledMethods.add(memberAt(u2(attribute, pc + 1)));
+                    referencedClasses.add(ownerOf(u2(attribute, pc + 1)));
+                    break;
+                case NEW:
+                    referencedClasses.add(classAt(u2(attribute, pc + 1)));
+                    break;
+                default:
+                    break;
+            }
+
+            pc += instructionLength(attribute, pc, start);
+        }
+    }
+
+    private String ownerOf(final int memberIndex) {
+        return classAt(((int[]) constants[memberIndex])[0]);
+    }
+
+    private static int instructionLength(final byte[] code, final int pc, final int codeStart) {
+        final int opcode = code[pc] & 0xFF;
+
+        if (opcode == TABLESWITCH || opcode == LOOKUPSWITCH) {
+            // Operands are aligned to 4 bytes, relative to the start of the code
+            final int padding = (4 - ((pc - codeStart + 1) % 4)) % 4;
+            final int operands = pc + 1 + padding;
+
+            if (opcode == TABLESWITCH) {
+                final int low = s4(code, operands + 4);
+                final int high = s4(code, operands + 8);
+                return 1 + padding + 12 + 4 * (high - low + 1);
+            } else {
+                final int pairs = s4(code, operands + 4);
+                return 1 + padding + 8 + 8 * pairs;
+            }
+        } else if (opcode == WIDE) {
+            return (code[pc + 1] & 0xFF) == IINC ? 6 : 4;
+        } else if (INSTRUCTION_LENGTHS[opcode] == 0) {
+            throw new IllegalStateException("Unknown opcode " + opcode);
+        }
+
+        return INSTRUCTION_LENGTHS[opcode];
+    }
+}
@@ -0,0 +1,240 @@
+package edu.illinois.cs.dt.tools.detection.sharedstate;
+
+import edu.illinois.cs.dt.tools.utility.Level;
+import edu.illinois.cs.dt.tools.utility.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Which static fields each test class may read and write, found from the class files in the directories on the test
+ * classpath (normally test-classes and classes). A class's accesses include those of every class it can reach
+ * through those directories, since the state that tests share usually lives in the code under test.
+ *
+ * Fields are named "declaringClass.field". Final fields holding primitives or Strings are constants and never count.
+ * Other final fields count as both read and written whenever they are read, because the object they hold can change.
+ * Fields declared outside of those directories (e.g., in library jars) can not be checked, so they count as both read
+ * and written whenever they are accessed, unless they belong to the JDK. Static initializers are ignored, since they run
+ * once no matter the order.
+ *
+ * System properties, System.out/err/in, and the file system are shared too, so calls that use them count as
+ * accessing the pseudo-fields {@link #SYSTEM_PROPERTIES}, {@link #SYSTEM_STREAMS} and {@link #FILE_SYSTEM}.
+ */
+public class StaticStateAnalysis {
+    // State outside of static fields that tests commonly share, treated as if it were a static field
+    public static final String SYSTEM_PROPERTIES = "<system-properties>";
+    public static final String FILE_SYSTEM = "<file-system>";
+    public static final String SYSTEM_STREAMS = "<system-streams>";
+
+    private static final Map<String, String> PSEUDO_FIELD_METHODS = new HashMap<>();
+    private static final Set<String> PSEUDO_FIELD_READ_ONLY_METHODS = new HashSet<>();
+    private static final Map<String, String> PSEUDO_FIELD_CLASSES = new HashMap<>();
+
+    static {
+        PSEUDO_FIELD_METHODS.put("java.lang.System.setProperty", SYSTEM_PROPERTIES);
+        PSEUDO_FIELD_METHODS.put("java.lang.System.clearProperty", SYSTEM_PROPERTIES);
+        PSEUDO_FIELD_METHODS.put("java.lang.System.setProperties", SYSTEM_PROPERTIES);
+        PSEUDO_FIELD_METHODS.put("java.lang.System.getProperties", SYSTEM_PROPERTIES); // The result can be modified
+        PSEUDO_FIELD_METHODS.put("java.lang.System.getProperty", SYSTEM_PROPERTIES);
+        PSEUDO_FIELD_METHODS.put("java.lang.Integer.getInteger", SYSTEM_PROPERTIES);
+        PSEUDO_FIELD_METHODS.put("java.lang.Long.getLong", SYSTEM_PROPERTIES);
+        PSEUDO_FIELD_METHODS.put("java.lang.Boolean.getBoolean", SYSTEM_PROPERTIES);
+        PSEUDO_FIELD_READ_ONLY_METHODS.add("java.lang.System.getProperty");
+        PSEUDO_FIELD_READ_ONLY_METHODS.add("java.lang.Integer.getInteger");
+        PSEUDO_FIELD_READ_ONLY_METHODS.add("java.lang.Long.getLong");
+        PSEUDO_FIELD_READ_ONLY_METHODS.add("java.lang.Boolean.getBoolean");
+
+        PSEUDO_FIELD_METHODS.put("java.lang.System.setOut", SYSTEM_STREAMS);
+        PSEUDO_FIELD_METHODS.put("java.lang.System.setErr", SYSTEM_STREAMS);
+        PSEUDO_FIELD_METHODS.put("java.lang.System.setIn", SYSTEM_STREAMS);
+
+        // Any use of these classes may read or write files
+        PSEUDO_FIELD_CLASSES.put("java.io.File", FILE_SYSTEM);
+        PSEUDO_FIELD_CLASSES.put("java.io.FileInputStream", FILE_SYSTEM);
+        PSEUDO_FIELD_CLASSES.put("java.io.FileOutputStream", FILE_SYSTEM);
+        PSEUDO_FIELD_CLASSES.put("java.io.FileReader", FILE_SYSTEM);
+        PSEUDO_FIELD_CLASSES.put("java.io.FileWriter", FILE_SYSTEM);
+        PSEUDO_FIELD_CLASSES.put("java.io.RandomAccessFile", FILE_SYSTEM);
+        PSEUDO_FIELD_CLASSES.put("java.nio.file.Files", FILE_SYSTEM);
+        PSEUDO_FIELD_CLASSES.put("java.nio.file.Paths", FILE_SYSTEM);
+        PSEUDO_FIELD_CLASSES.put("java.nio.channels.FileChannel", FILE_SYSTEM);
+    }
+    public static StaticStateAnalysis fromClasspath(final String classpath) {
+        final StaticStateAnalysis analysis = new StaticStateAnalysis();
+
+        for (final String entry : classpath.split(File.pathSeparator)) {
+            final Path path = Paths.get(entry);
+
+            if (Files.isDirectory(path)) {
+                analysis.addDirectory(path);
+            }
+        }
+
+        Logger.getGlobal().log(Level.INFO, "Analyzed static state of " + analysis.classes.size() + " classes");
+
+        return analysis;
+    }
+
+    private final Map<String, ClassFileScanner> classes = new HashMap<>();
+    private final Map<String, Set<String>> reads = new HashMap<>();
+    private final Map<String, Set<String>> writes = new HashMap<>();
+
+    public void addDirectory(final Path dir) {
+        try (final Stream<Path> paths = Files.walk(dir)) {
+            paths.filter(p -> p.toString().endsWith(".class")).forEach(this::addClassFile);
+        } catch (IOException e) {
+            Logger.getGlobal().log(Level.WARNING, "Could not read classes in " + dir, e);
+        }
+    }
+
+    private void addClassFile(final Path classFile) {
+        try {
+            final ClassFileScanner scanner = new ClassFileScanner(Files.readAllBytes(classFile));
+            classes.putIfAbsent(scanner.className(), scanner);
+        } catch (IOException | RuntimeException e) {
+            Logger.getGlobal().log(Level.FINE, "Could not analyze " + classFile + ": " + e);
+        }
+    }
+
+    /**
+     * The classes that the analysis knows about.
+     */
+    public Set<String> classes() {
+        return Collections.unmodifiableSet(classes.keySet());
+    }
+
+    public ClassFileScanner scanner(final String className) {
+        return classes.get(className);
+    }
+
+    public Set<String> reads(final String testClass) {
+        analyze(testClass);
+        return reads.get(testClass);
+    }
+
+    public Set<String> writes(final String testClass) {
+        analyze(testClass);
+        return writes.get(testClass);
+    }
+
+    /**
+     * The given class, and every class that it can reach through the classes that the analysis knows about.
+     */
+    public Set<String> reachable(final String className) {
+        final Set<String> seen = new LinkedHashSet<>();
+        final Deque<String> toVisit = new ArrayDeque<>();
+        toVisit.add(className);
+
+        while (!toVisit.isEmpty()) {
+            final String current = toVisit.removeFirst();
+
+            if (classes.containsKey(current) && seen.add(current)) {
+                toVisit.addAll(classes.get(current).referencedClasses());
+            }
+        }
+
+        return seen;
+    }
+
+    private void analyze(final String testClass) {
+        if (reads.containsKey(testClass)) {
+            return;
+        }
+
+        final Set<String> classReads = new HashSet<>();
+        final Set<String> classWrites = new HashSet<>();
+
+        for (final String className : reachable(testClass)) {
+            final ClassFileScanner scanner = classes.get(className);
+
+            for (final String field : scanner.staticReads()) {
+                final ClassFileScanner.StaticField declaration = declaration(field);
+                final String name = declaredName(field);
+
+                if (declaration == null) {
+                    if (!isJdkField(field)) {
+                        classReads.add(name);
+                        classWrites.add(name);
+                    }
+                } else if (!declaration.isFinal()) {
+                    classReads.add(name);
+                } else if (declaration.isReference()) {
+                    classReads.add(name);
+                    classWrites.add(name);
+                }
+            }
+
+            for (final String field : scanner.staticWrites()) {
+                if (declaration(field) != null || !isJdkField(field)) {
+                    classWrites.add(declaredName(field));
+                }
+            }
+
+            for (final String method : scanner.calledMethods()) {
+                final String owner = method.substring(0, method.lastIndexOf('.'));
+                final String pseudoField = PSEUDO_FIELD_METHODS.getOrDefault(method, PSEUDO_FIELD_CLASSES.get(owner));
+
+                if (pseudoField != null) {
+                    classReads.add(pseudoField);
+                    if (!PSEUDO_FIELD_READ_ONLY_METHODS.contains(method)) {
+                        classWrites.add(pseudoField);
+                    }
+                }
+            }
+        }
+
+        reads.put(testClass, classReads);
+        writes.put(testClass, classWrites);
+    }
+
+    /**
+     * The declaring class of a field, which may be a superclass of the class used to access it.
+     */
+    private ClassFileScanner declaringClass(final String field) {
+        final int dot = field.lastIndexOf('.');
+        final String fieldName = field.substring(dot + 1);
+
+        String owner = field.substring(0, dot);
+        while (owner != null && classes.containsKey(owner)) {
+            final ClassFileScanner scanner = classes.get(owner);
+
+            if (scanner.staticFields().containsKey(fieldName)) {
+                return scanner;
+            }
+
+            owner = scanner.superName();
+        }
+
+        return null;
+    }
+
+    /**
+     * Whether the field belongs to the JDK, whose static state that tests commonly share is covered by the pseudo-fields.
+     */
+    private static boolean isJdkField(final String field) {
+        return field.startsWith("java.") || field.startsWith("javax.") || field.startsWith("sun.") ||
+               field.startsWith("com.sun.") || field.startsWith("jdk.");
+    }
+
+    private ClassFileScanner.StaticField declaration(final String field) {
+        final ClassFileScanner scanner = declaringClass(field);
+        return scanner == null ? null : scanner.staticFields().get(field.substring(field.lastIndexOf('.') + 1));
+    }
+
+    private String declaredName(final String field) {
+        final ClassFileScanner scanner = declaringClass(field);
+        return scanner == null ? field : scanner.className() + field.substring(field.lastIndexOf('.'));
+    }
+}
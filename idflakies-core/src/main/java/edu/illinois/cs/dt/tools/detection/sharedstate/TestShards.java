@@ -0,0 +1,135 @@
+package edu.illinois.cs.dt.tools.detection.sharedstate;
+
+import edu.illinois.cs.dt.tools.detection.TestShuffler;
+import edu.illinois.cs.dt.tools.utility.Level;
+import edu.illinois.cs.dt.tools.utility.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits test classes into shards that share no state (see {@link StaticStateAnalysis}), so each shard can run in its
+ * own JVM, at the same time as the others, without changing any test's result.
+ *
+ * Classes that share state (one writes something that the other reads or writes) always end up in the same
+ * component. Components are then packed into at most the requested number of shards, largest first, so the shards
+ * have about the same number of tests.
+ */
+public class TestShards {
+    private final Map<String, Integer> shardOf = new HashMap<>();
+    private final int shardCount;
+
+    public TestShards(final List<String> tests, final StaticStateAnalysis analysis, final int maxShards) {
+        final Map<String, Integer> testCounts = new LinkedHashMap<>();
+        for (final String test : tests) {
+            testCounts.merge(TestShuffler.className(test), 1, Integer::sum);
+        }
+
+        final List<String> classes = new ArrayList<>(testCounts.keySet());
+        Collections.sort(classes);
+
+        final Map<String, String> parent = new HashMap<>();
+        classes.forEach(c -> parent.put(c, c));
+
+        // Connect every class that writes some state with every other class that uses it
+        final Map<String, String> writerOf = new HashMap<>();
+        for (final String className : classes) {
+            for (final String field : analysis.writes(className)) {
+                final String writer = writerOf.putIfAbsent(field, className);
+                if (writer != null) {
+                    union(parent, writer, className);
+                }
+            }
+        }
+        for (final String className : classes) {
+            for (final String field : analysis.reads(className)) {
+                if (writerOf.containsKey(field)) {
+                    union(parent, writerOf.get(field), className);
+                }
+            }
+        }
+
+        final Map<String, List<String>> components = new LinkedHashMap<>();
+        for (final String className : classes) {
+            components.computeIfAbsent(find(parent, className), r -> new ArrayList<>()).add(className);
+        }
+
+        final List<List<String>> bySize = new ArrayList<>(components.values());
+        bySize.sort(Comparator.comparingInt((List<String> component) ->
+                component.stream().mapToInt(testCounts::get).sum()).reversed());
+
+        this.shardCount = Math.max(1, Math.min(maxShards, bySize.size()));
+        final int[] shardSizes = new int[shardCount];
+
+        for (final List<String> component : bySize) {
+            int smallest = 0;
+            for (int i = 1; i < shardCount; i++) {
+                if (shardSizes[i] < shardSizes[smallest]) {
+                    smallest = i;
+                }
+            }
+
+            for (final String className : component) {
+                shardOf.put(className, smallest);
+                shardSizes[smallest] += testCounts.get(className);
+            }
+        }
+
+        Logger.getGlobal().log(Level.INFO, String.format("Split %d test classes into %d independent components, run as %d shards",
+                                                         classes.size(), components.size(), shardCount));
+    }
+
+    private static String find(final Map<String, String> parent, final String className) {
+        String root = className;
+        while (!parent.get(root).equals(root)) {
+            root = parent.get(root);
+        }
+
+        // Path compression
+        String current = className;
+        while (!current.equals(root)) {
+            final String next = parent.get(current);
+            parent.put(current, root);
+            current = next;
+        }
+
+        return root;
+    }
+
+    private static void union(final Map<String, String> parent, final String a, final String b) {
+        final String rootA = find(parent, a);
+        final String rootB = find(parent, b);
+
+        if (!rootA.equals(rootB)) {
+            parent.put(rootB, rootA);
+        }
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Splits the order into one order per shard, keeping the tests in the same relative order. Shards with no tests
+     * in the order are left out. Tests from classes that were not analyzed all go in the first shard.
+     */
+    public List<List<String>> split(final List<String> order) {
+        final List<List<String>> shards = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ArrayList<>());
+        }
+
+        for (final String test : order) {
+            shards.get(shardOf.getOrDefault(TestShuffler.className(test), 0)).add(test);
+        }
+
+        shards.removeIf(List::isEmpty);
+
+        return shards;
+    }
+}
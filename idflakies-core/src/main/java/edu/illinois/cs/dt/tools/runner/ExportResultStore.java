@@ -0,0 +1,58 @@
+package edu.illinois.cs.dt.tools.runner;
+
+import com.reedoei.eunomia.util.StandardMain;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Exports every result store (see {@link ResultStore}) under a directory to the per-file layout, with each result in
+ * test-runs/results and each output in test-runs/output, for tools that read that layout.
+ */
+public class ExportResultStore extends StandardMain {
+    private final Path results;
+
+    private ExportResultStore(final String[] args) {
+        super(args);
+
+        results = Paths.get(getArgRequired("results"));
+    }
+
+    public static void main(final String[] args) {
+        try {
+            new ExportResultStore(args).run();
+        } catch (Exception e) {
+            e.printStackTrace();
+
+            System.exit(1);
+        }
+
+        System.exit(0);
+    }
+
+    @Override
+    protected void run() throws Exception {
+        final List<Path> allTestRuns;
+        try (final Stream<Path> paths = Files.walk(results)) {
+            allTestRuns = paths
+                    .filter(p -> p.getFileName() != null &&
+                                 p.getFileName().toString().equals(RunnerPathManager.TEST_RUNS.getFileName().toString()))
+                    .filter(ResultStore::exists)
+                    .collect(Collectors.toList());
+        }
+
+        for (int i = 0; i < allTestRuns.size(); i++) {
+            final Path testRuns = allTestRuns.get(i);
+            final ResultStore store = ResultStore.open(testRuns);
+
+            System.out.println("[INFO] Exporting " + store.ids().size() + " test runs in " + testRuns +
+                               " (" + (i + 1) + " of " + allTestRuns.size() + ")");
+            store.export();
+            ResultStore.close(testRuns);
+        }
+    }
+}
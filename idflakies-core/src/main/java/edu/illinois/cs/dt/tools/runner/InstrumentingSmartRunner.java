@@ -1,5 +1,7 @@
 package edu.illinois.cs.dt.tools.runner;
 
+import edu.illinois.cs.dt.tools.utility.Level;
+import edu.illinois.cs.dt.tools.utility.Logger;
 import edu.illinois.cs.testrunner.data.framework.TestFramework;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
 import edu.illinois.cs.testrunner.runner.Runner;
@@ -36,6 +38,10 @@ public class InstrumentingSmartRunner extends SmartRunner {
         this.baseDir = baseDir;
     }
 
+    public File baseDir() {
+        return baseDir;
+    }
+
     @Override
     public ExecutionInfo execution(final Stream<String> testOrder, final ExecutionInfoBuilder executionInfoBuilder) {
         final ExecutionInfoBuilder builder;
@@ -55,9 +61,15 @@ public class InstrumentingSmartRunner extends SmartRunner {
             try {
                 writeTo(outputPath);
 
+                final long startTime = System.currentTimeMillis();
                 final Try<TestRunResult> testRunResultTry = super.runWithCp(cp, testOrder);
+                final double wallSeconds = (System.currentTimeMillis() - startTime) / 1000.0;
 
                 if (testRunResultTry.isSuccess()) {
+                    final double overhead = RunOverhead.getGlobal().record(wallSeconds, testRunResultTry.get());
+                    Logger.getGlobal().log(Level.FINE, String.format("Run %s took %.2f seconds, %.2f seconds outside of tests",
+                                                                     testRunResultTry.get().id(), wallSeconds, overhead));
+
                     RunnerPathManager.outputResult(outputPath, testRunResultTry.get());
                 }
 
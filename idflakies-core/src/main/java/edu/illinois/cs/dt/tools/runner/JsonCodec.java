@@ -0,0 +1,615 @@
+package edu.illinois.cs.dt.tools.runner;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import edu.illinois.cs.dt.tools.detection.DetectionRound;
+import edu.illinois.cs.dt.tools.detection.StrategyYield;
+import edu.illinois.cs.dt.tools.runner.data.DependentTest;
+import edu.illinois.cs.dt.tools.runner.data.DependentTestList;
+import edu.illinois.cs.dt.tools.runner.data.DependentTestType;
+import edu.illinois.cs.dt.tools.runner.data.MinimizedOrders;
+import edu.illinois.cs.dt.tools.runner.data.OrderCodec;
+import edu.illinois.cs.dt.tools.runner.data.TestRun;
+import edu.illinois.cs.testrunner.data.results.Result;
+import edu.illinois.cs.testrunner.data.results.TestResult;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * JSON for the results written every round (test run results, detection rounds and dependent test lists), with
+ * hand-written streaming adapters instead of Gson's reflective ones, and readers and writers directly over files, so
+ * results are never built up as one String in memory.
+ *
+ * The JSON is the same as what Gson writes reflectively for these classes, so files written either way can be read
+ * either way.
+ */
+public class JsonCodec {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final Gson GSON = create(null);
+    // Gson instances that encode orders relative to a base order, by the hash of the base order
+    private static final Map<String, Gson> ENCODING = new ConcurrentHashMap<>();
+
+    /**
+     * The shared Gson instance, for anything that is not read or written directly with {@link #read} and
+     * {@link #write}.
+     */
+    public static Gson gson() {
+        return GSON;
+    }
+
+    /**
+     * Gson that writes the orders of test runs encoded with the codec (see {@link ResultsFormat}), or the shared
+     * instance if the codec is null.
+     */
+    public static Gson gson(final OrderCodec codec) {
+        if (codec == null) {
+            return GSON;
+        }
+
+        return ENCODING.computeIfAbsent(codec.baseHash(), hash -> create(codec));
+    }
+
+    private static Gson create(final OrderCodec codec) {
+        return new GsonBuilder().registerTypeAdapterFactory(new Factory(codec)).create();
+    }
+
+    public static JsonWriter writer(final Path path) throws IOException {
+        final FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+
+        return writer(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE));
+    }
+
+    public static JsonWriter writer(final Writer out) {
+        final JsonWriter writer = new JsonWriter(new BufferedWriter(out, BUFFER_SIZE));
+        // The same settings as Gson's defaults, for anything written directly to the writer
+        writer.setHtmlSafe(true);
+        writer.setSerializeNulls(false);
+
+        return writer;
+    }
+
+    public static JsonReader reader(final Path path) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        return reader(Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), BUFFER_SIZE));
+    }
+
+    public static JsonReader reader(final Reader in) {
+        return new JsonReader(new BufferedReader(in, BUFFER_SIZE));
+    }
+
+    public static void write(final Path path, final Object value) throws IOException {
+        write(GSON, path, value, value.getClass());
+    }
+
+    public static void write(final Path path, final Object value, final Type type) throws IOException {
+        write(GSON, path, value, type);
+    }
+
+    public static void write(final Gson gson, final Path path, final Object value) throws IOException {
+        write(gson, path, value, value.getClass());
+    }
+
+    /**
+     * Writes the value to a temporary file next to the path and then moves it in place, so that readers (e.g., other
+     * workers) never see a half-written file.
+     */
+    private static void write(final Gson gson, final Path path, final Object value, final Type type) throws IOException {
+        final Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+
+        try {
+            try (final JsonWriter writer = writer(temp)) {
+                gson.toJson(value, type, writer);
+            }
+
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public static <T> T read(final Path path, final Class<T> clz) throws IOException {
+        return read(path, (Type) clz);
+    }
+
+    public static <T> T read(final Path path, final Type type) throws IOException {
+        try (final JsonReader reader = reader(path)) {
+            return GSON.fromJson(reader, type);
+        }
+    }
+
+    // Helpers for the adapters here and in ResultsFormat
+
+    static String nextString(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        return in.nextString();
+    }
+
+    static List<String> readStrings(final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        final List<String> strings = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            strings.add(nextString(in));
+        }
+        in.endArray();
+
+        return strings;
+    }
+
+    static void writeStrings(final JsonWriter out, final List<String> strings) throws IOException {
+        if (strings == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginArray();
+        for (final String s : strings) {
+            out.value(s);
+        }
+        out.endArray();
+    }
+
+    private static class Factory implements TypeAdapterFactory {
+        private final OrderCodec codec;
+
+        private Factory(final OrderCodec codec) {
+            this.codec = codec;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(final Gson gson, final TypeToken<T> type) {
+            final Class<? super T> raw = type.getRawType();
+            final TypeAdapter<?> adapter;
+
+            if (raw == StackTraceElement.class) {
+                adapter = new StackTraceElementAdapter();
+            } else if (raw == TestResult.class) {
+                adapter = new TestResultAdapter(gson);
+            } else if (raw == TestRunResult.class) {
+                adapter = new TestRunResultAdapter(gson);
+            } else if (raw == TestRun.class) {
+                adapter = new TestRunAdapter(gson, codec);
+            } else if (raw == DependentTest.class) {
+                adapter = new DependentTestAdapter(gson);
+            } else if (raw == DependentTestList.class) {
+                adapter = new DependentTestListAdapter(gson, codec);
+            } else if (raw == DetectionRound.class) {
+                adapter = new DetectionRoundAdapter(gson);
+            } else {
+                return null;
+            }
+
+            return (TypeAdapter<T>) adapter.nullSafe();
+        }
+    }
+
+    private static class StackTraceElementAdapter extends TypeAdapter<StackTraceElement> {
+        @Override
+        public void write(final JsonWriter out, final StackTraceElement element) throws IOException {
+            out.beginObject();
+            out.name("declaringClass").value(element.getClassName());
+            out.name("methodName").value(element.getMethodName());
+            out.name("fileName").value(element.getFileName());
+            out.name("lineNumber").value(element.getLineNumber());
+            out.endObject();
+        }
+
+        @Override
+        public StackTraceElement read(final JsonReader in) throws IOException {
+            String declaringClass = null;
+            String methodName = null;
+            String fileName = null;
+            int lineNumber = -1;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "declaringClass": declaringClass = nextString(in); break;
+                    case "methodName": methodName = nextString(in); break;
+                    case "fileName": fileName = nextString(in); break;
+                    case "lineNumber": lineNumber = in.nextInt(); break;
+                    // Newer JVMs also have the module and class loader, which we do not keep
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+
+            return new StackTraceElement(declaringClass, methodName, fileName, lineNumber);
+        }
+    }
+
+    private static class TestResultAdapter extends TypeAdapter<TestResult> {
+        private final TypeAdapter<Result> results;
+        private final TypeAdapter<StackTraceElement[]> stackTraces;
+
+        private TestResultAdapter(final Gson gson) {
+            this.results = gson.getAdapter(Result.class);
+            this.stackTraces = gson.getAdapter(StackTraceElement[].class);
+        }
+
+        @Override
+        public void write(final JsonWriter out, final TestResult testResult) throws IOException {
+            out.beginObject();
+            out.name("name").value(testResult.name());
+            out.name("result");
+            results.write(out, testResult.result());
+            out.name("time").value(testResult.time());
+            out.name("stackTrace");
+            stackTraces.write(out, testResult.stackTrace());
+            out.endObject();
+        }
+
+        @Override
+        public TestResult read(final JsonReader in) throws IOException {
+            String name = null;
+            Result result = null;
+            double time = 0;
+            StackTraceElement[] stackTrace = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "name": name = nextString(in); break;
+                    case "result": result = results.read(in); break;
+                    case "time": time = in.nextDouble(); break;
+                    case "stackTrace": stackTrace = StackTraceTable.intern(stackTraces.read(in)); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+
+            return new TestResult(name, result, time, stackTrace);
+        }
+    }
+
+    private static class TestRunResultAdapter extends TypeAdapter<TestRunResult> {
+        private final TypeAdapter<TestResult> testResults;
+
+        private TestRunResultAdapter(final Gson gson) {
+            this.testResults = gson.getAdapter(TestResult.class);
+        }
+
+        @Override
+        public void write(final JsonWriter out, final TestRunResult testRunResult) throws IOException {
+            out.beginObject();
+            out.name("id").value(testRunResult.id());
+            out.name("testOrder");
+            writeStrings(out, testRunResult.testOrder());
+            out.name("results");
+            if (testRunResult.results() == null) {
+                out.nullValue();
+            } else {
+                out.beginObject();
+                for (final Map.Entry<String, TestResult> entry : testRunResult.results().entrySet()) {
+                    out.name(entry.getKey());
+                    testResults.write(out, entry.getValue());
+                }
+                out.endObject();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public TestRunResult read(final JsonReader in) throws IOException {
+            String id = null;
+            List<String> testOrder = null;
+            Map<String, TestResult> results = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id": id = nextString(in); break;
+                    case "testOrder": testOrder = readStrings(in); break;
+                    case "results": results = readResults(in); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+
+            return new TestRunResult(id, testOrder, results);
+        }
+
+        private Map<String, TestResult> readResults(final JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            final Map<String, TestResult> results = new LinkedHashMap<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                results.put(in.nextName(), testResults.read(in));
+            }
+            in.endObject();
+
+            return results;
+        }
+    }
+
+    private static class TestRunAdapter extends TypeAdapter<TestRun> {
+        private final TypeAdapter<Result> results;
+        private final OrderCodec codec;
+
+        private TestRunAdapter(final Gson gson, final OrderCodec codec) {
+            this.results = gson.getAdapter(Result.class);
+            this.codec = codec;
+        }
+
+        @Override
+        public void write(final JsonWriter out, final TestRun testRun) throws IOException {
+            out.beginObject();
+            out.name("order");
+            if (codec == null) {
+                writeStrings(out, testRun.order());
+            } else {
+                final OrderCodec.Encoded encoded = codec.encode(testRun.order());
+                out.value(encoded.code());
+                if (encoded.extraTests() != null) {
+                    out.name("extraTests");
+                    writeStrings(out, encoded.extraTests());
+                }
+            }
+            out.name("result");
+            results.write(out, testRun.result());
+            out.name("testRunId").value(testRun.testRunId());
+            out.endObject();
+        }
+
+        @Override
+        public TestRun read(final JsonReader in) throws IOException {
+            List<String> order = null;
+            String code = null;
+            List<String> extraTests = null;
+            Result result = null;
+            String testRunId = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "order":
+                        if (in.peek() == JsonToken.STRING) {
+                            code = in.nextString();
+                        } else {
+                            order = readStrings(in);
+                        }
+                        break;
+                    case "extraTests": extraTests = readStrings(in); break;
+                    case "result": result = results.read(in); break;
+                    case "testRunId": testRunId = nextString(in); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+
+            if (code != null) {
+                if (codec == null) {
+                    throw new JsonParseException("Encoded order without a base order to decode it");
+                }
+
+                order = codec.decode(code, extraTests);
+            }
+
+            return new TestRun(order, result, testRunId);
+        }
+    }
+
+    private static class DependentTestAdapter extends TypeAdapter<DependentTest> {
+        private final TypeAdapter<TestRun> testRuns;
+        private final TypeAdapter<DependentTestType> types;
+        private final TypeAdapter<MinimizedOrders> minimizedOrders;
+
+        private DependentTestAdapter(final Gson gson) {
+            this.testRuns = gson.getAdapter(TestRun.class);
+            this.types = gson.getAdapter(DependentTestType.class);
+            // Only written for minimized tests, so it is left to Gson (which still uses our adapter for its test runs)
+            this.minimizedOrders = gson.getAdapter(MinimizedOrders.class);
+        }
+
+        @Override
+        public void write(final JsonWriter out, final DependentTest dependentTest) throws IOException {
+            out.beginObject();
+            out.name("name").value(dependentTest.name());
+            out.name("intended");
+            testRuns.write(out, dependentTest.intended());
+            out.name("revealed");
+            testRuns.write(out, dependentTest.revealed());
+            out.name("type");
+            types.write(out, dependentTest.type());
+            out.name("minimized");
+            minimizedOrders.write(out, dependentTest.minimized());
+            out.endObject();
+        }
+
+        @Override
+        public DependentTest read(final JsonReader in) throws IOException {
+            String name = null;
+            TestRun intended = null;
+            TestRun revealed = null;
+            DependentTestType type = null;
+            MinimizedOrders minimized = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "name": name = nextString(in); break;
+                    case "intended": intended = testRuns.read(in); break;
+                    case "revealed": revealed = testRuns.read(in); break;
+                    case "type": type = types.read(in); break;
+                    case "minimized": minimized = minimizedOrders.read(in); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+
+            final DependentTest dependentTest = new DependentTest(name, intended, revealed);
+            if (type != null) {
+                dependentTest.setType(type);
+            }
+            dependentTest.setMinimized(minimized);
+
+            return dependentTest;
+        }
+    }
+
+    /**
+     * With a codec, lists are written with the format and the base order first, so that readers know how to decode
+     * the orders of the tests before they get to them.
+     */
+    private static class DependentTestListAdapter extends TypeAdapter<DependentTestList> {
+        private final TypeAdapter<DependentTest> dependentTests;
+        private final OrderCodec codec;
+
+        private DependentTestListAdapter(final Gson gson, final OrderCodec codec) {
+            this.dependentTests = gson.getAdapter(DependentTest.class);
+            this.codec = codec;
+        }
+
+        @Override
+        public void write(final JsonWriter out, final DependentTestList dependentTestList) throws IOException {
+            out.beginObject();
+            if (codec != null) {
+                out.name("format").value(ResultsFormat.COMPACT);
+                out.name("base");
+                writeStrings(out, codec.base());
+            }
+            out.name("dts");
+            if (dependentTestList.dts() == null) {
+                out.nullValue();
+            } else {
+                out.beginArray();
+                for (final DependentTest dependentTest : dependentTestList.dts()) {
+                    dependentTests.write(out, dependentTest);
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public DependentTestList read(final JsonReader in) throws IOException {
+            TypeAdapter<DependentTest> adapter = dependentTests;
+            List<DependentTest> dts = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "base":
+                        final List<String> base = readStrings(in);
+                        if (codec == null || !codec.baseHash().equals(OrderCodec.hash(base))) {
+                            adapter = gson(new OrderCodec(base)).getAdapter(DependentTest.class);
+                        }
+                        break;
+                    case "dts":
+                        if (in.peek() == JsonToken.NULL) {
+                            in.nextNull();
+                            break;
+                        }
+
+                        dts = new ArrayList<>();
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            dts.add(adapter.read(in));
+                        }
+                        in.endArray();
+                        break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+
+            return new DependentTestList(dts);
+        }
+    }
+
+    private static class DetectionRoundAdapter extends TypeAdapter<DetectionRound> {
+        private final TypeAdapter<DependentTestList> dependentTestLists;
+        private final TypeAdapter<List<StrategyYield>> strategyYields;
+
+        private DetectionRoundAdapter(final Gson gson) {
+            this.dependentTestLists = gson.getAdapter(DependentTestList.class);
+            // Small, and only written by the adaptive detector, so it is left to Gson
+            this.strategyYields = gson.getAdapter(new TypeToken<List<StrategyYield>>(){});
+        }
+
+        @Override
+        public void write(final JsonWriter out, final DetectionRound round) throws IOException {
+            out.beginObject();
+            out.name("testRunIds");
+            writeStrings(out, round.testRunIds());
+            out.name("unfilteredTests");
+            dependentTestLists.write(out, round.unfilteredTests());
+            out.name("filteredTests");
+            dependentTestLists.write(out, round.filteredTests());
+            out.name("roundTime").value(round.roundTime());
+            out.name("strategy").value(round.strategy());
+            out.name("strategyYields");
+            strategyYields.write(out, round.strategyYields());
+            out.endObject();
+        }
+
+        @Override
+        public DetectionRound read(final JsonReader in) throws IOException {
+            List<String> testRunIds = null;
+            DependentTestList unfiltered = null;
+            DependentTestList filtered = null;
+            double roundTime = 0;
+            String strategy = null;
+            List<StrategyYield> yields = null;
+
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "testRunIds": testRunIds = readStrings(in); break;
+                    case "unfilteredTests": unfiltered = dependentTestLists.read(in); break;
+                    case "filteredTests": filtered = dependentTestLists.read(in); break;
+                    case "roundTime": roundTime = in.nextDouble(); break;
+                    case "strategy": strategy = nextString(in); break;
+                    case "strategyYields": yields = strategyYields.read(in); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+
+            return new DetectionRound(testRunIds,
+                    unfiltered == null ? null : unfiltered.dts(), filtered == null ? null : filtered.dts(),
+                    roundTime, strategy, yields);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package edu.illinois.cs.dt.tools.runner;
+
+import edu.illinois.cs.testrunner.configuration.Configuration;
+import edu.illinois.cs.testrunner.data.results.TestResult;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Decides what to keep of the output (stdout and stderr) of each test run:
+ *
+ * - dt.output.keep: whether to keep the output of all runs, only of runs where some test's result diverged from the
+ *   original results, or of no runs.
+ * - dt.output.max.bytes: at most how many bytes to keep of each run's output. Longer output keeps its first and
+ *   last half of that, with a line saying how much was left out in between.
+ * - dt.output.compress: whether to gzip the output. Compressed output is saved with a ".gz" extension.
+ *
+ * Readers of outputs should use {@link #read(Path)} or {@link #decode(InputStream)}, which handle both compressed and
+ * uncompressed output.
+ */
+public class OutputCapture {
+    public static final String GZ = ".gz";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // The results of the original order of each module (by its test-runs directory), once known, for
+    // dt.output.keep=diverged
+    private static final Map<Path, TestRunResult> BASELINES = new ConcurrentHashMap<>();
+
+    public static String keep() {
+        return Configuration.config().getProperty("dt.output.keep", "all");
+    }
+
+    public static long maxBytes() {
+        return Configuration.config().getProperty("dt.output.max.bytes", 0);
+    }
+
+    public static boolean compress() {
+        return Configuration.config().getProperty("dt.output.compress", false);
+    }
+
+    /**
+     * Sets the results that the current module's runs are compared against.
+     */
+    public static void setBaseline(final TestRunResult originalResults) {
+        BASELINES.put(RunnerPathManager.testRuns(), originalResults);
+    }
+
+    /**
+     * Forgets the current module's baseline, so its runs are kept until its original results are known again.
+     */
+    public static void clearBaseline() {
+        BASELINES.remove(RunnerPathManager.testRuns());
+    }
+
+    /**
+     * Whether to keep the output of the run. With dt.output.keep=diverged, runs before the module's original results
+     * are known (i.e., the original order runs themselves) are kept.
+     */
+    public static boolean shouldKeep(final TestRunResult testRunResult) {
+        switch (keep()) {
+            case "none":
+                return false;
+            case "diverged":
+                return diverged(testRunResult);
+            default:
+                return true;
+        }
+    }
+
+    private static boolean diverged(final TestRunResult testRunResult) {
+        final TestRunResult original = BASELINES.get(RunnerPathManager.testRuns());
+
+        if (original == null) {
+            return true;
+        }
+
+        for (final Map.Entry<String, TestResult> entry : testRunResult.results().entrySet()) {
+            final TestResult expected = original.results().get(entry.getKey());
+
+            if (expected != null && !expected.result().equals(entry.getValue().result())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Caps and compresses the output as configured, streaming it into a new file next to it. Returns the new file
+     * (whose name ends with {@link #GZ} if it is compressed), or the output itself if there is nothing to do.
+     */
+    public static Path capture(final Path output) throws IOException {
+        final long maxBytes = maxBytes();
+        final boolean compress = compress();
+        final long size = Files.size(output);
+
+        if (!compress && (maxBytes <= 0 || size <= maxBytes)) {
+            return output;
+        }
+
+        final Path captured = output.resolveSibling(output.getFileName() + (compress ? GZ : ".capped"));
+
+        try (final FileChannel in = FileChannel.open(output, StandardOpenOption.READ);
+             final OutputStream out = compress ?
+                     new GZIPOutputStream(Files.newOutputStream(captured), BUFFER_SIZE) : Files.newOutputStream(captured)) {
+            final WritableByteChannel channel = Channels.newChannel(out);
+
+            if (maxBytes <= 0 || size <= maxBytes) {
+                transfer(in, 0, size, channel);
+            } else {
+                final long head = maxBytes / 2;
+                final long tail = maxBytes - head;
+
+                transfer(in, 0, head, channel);
+                out.write(String.format("%n[iDFlakies: %d bytes of output omitted]%n", size - head - tail)
+                        .getBytes(StandardCharsets.UTF_8));
+                transfer(in, size - tail, tail, channel);
+            }
+        }
+
+        return captured;
+    }
+
+    private static void transfer(final FileChannel in, final long position, final long count,
+                                 final WritableByteChannel out) throws IOException {
+        long transferred = 0;
+
+        while (transferred < count) {
+            final long n = in.transferTo(position + transferred, count - transferred, out);
+
+            if (n <= 0) {
+                break;
+            }
+
+            transferred += n;
+        }
+    }
+
+    public static boolean isCompressed(final ByteBuffer output) {
+        return output.remaining() >= 2 &&
+               (output.get(output.position()) & 0xFF) == 0x1F && (output.get(output.position() + 1) & 0xFF) == 0x8B;
+    }
+
+    public static String read(final Path path) throws IOException {
+        try (final InputStream in = Files.newInputStream(path)) {
+            return decode(in);
+        }
+    }
+
+    /**
+     * Reads output that may or may not be compressed.
+     */
+    public static String decode(final InputStream stream) throws IOException {
+        final BufferedInputStream in = new BufferedInputStream(stream, BUFFER_SIZE);
+
+        in.mark(2);
+        final boolean compressed = in.read() == 0x1F && in.read() == 0x8B;
+        in.reset();
+
+        final InputStream decoded = compressed ? new GZIPInputStream(in, BUFFER_SIZE) : in;
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[BUFFER_SIZE];
+
+        int n;
+        while ((n = decoded.read(buffer)) != -1) {
+            bytes.write(buffer, 0, n);
+        }
+
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
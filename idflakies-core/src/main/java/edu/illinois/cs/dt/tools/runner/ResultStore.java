@@ -0,0 +1,386 @@
+package edu.illinois.cs.dt.tools.runner;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import edu.illinois.cs.testrunner.configuration.Configuration;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Stores the results and outputs of test runs in a few large segment files in test-runs/store, instead of two small
+ * files per run in test-runs/results and test-runs/output (dt.results.store=segments).
+ *
+ * Results (in the configured results format) and outputs are appended to the current segment, which is closed once
+ * it is larger than {@link #SEGMENT_SIZE}. Each record is then appended to the index, which maps its test run id to
+ * the segment, offset and length of the record. Records are read from memory-mapped segments.
+ *
+ * A record is only in the index once it has been completely written to its segment, so if a run is interrupted, the
+ * store loses at most the records that were being written. Use {@link ExportResultStore} to get the results and
+ * outputs back as separate files.
+ */
+public class ResultStore {
+    public static final String STORE = "store";
+
+    private static final String INDEX = "index";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final long SEGMENT_SIZE = 64L << 20;
+
+    private static final byte RESULT = 0;
+    private static final byte OUTPUT = 1;
+    private static final byte REMOVED = 2;
+
+    private static final Map<Path, ResultStore> STORES = new HashMap<>();
+
+    public static boolean enabled() {
+        return Configuration.config().getProperty("dt.results.store", "files").equals("segments");
+    }
+
+    public static boolean exists(final Path testRuns) {
+        return Files.isDirectory(testRuns.resolve(STORE));
+    }
+
+    /**
+     * The store in the test-runs directory. The store's files are only created once something is stored.
+     */
+    public static synchronized ResultStore open(final Path testRuns) throws IOException {
+        final Path key = testRuns.toAbsolutePath().normalize();
+        ResultStore store = STORES.get(key);
+
+        if (store == null) {
+            store = new ResultStore(testRuns);
+            STORES.put(key, store);
+        }
+
+        return store;
+    }
+
+    /**
+     * Closes the store in the test-runs directory, if it is open, e.g., before deleting it.
+     */
+    public static synchronized void close(final Path testRuns) throws IOException {
+        final ResultStore store = STORES.remove(testRuns.toAbsolutePath().normalize());
+
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    private static class Entry {
+        private final int segment;
+        private final long offset;
+        private final int length;
+
+        private Entry(final int segment, final long offset, final int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private final Path testRuns;
+    private final Path dir;
+
+    // In the order they were stored
+    private final Map<String, Entry> results = new LinkedHashMap<>();
+    private final Map<String, Entry> outputs = new HashMap<>();
+
+    private final List<MappedByteBuffer> mapped = new ArrayList<>();
+
+    private FileChannel index = null;
+    private FileChannel segment = null;
+    private int segmentNumber = 0;
+
+    private ResultStore(final Path testRuns) throws IOException {
+        this.testRuns = testRuns;
+        this.dir = testRuns.resolve(STORE);
+
+        if (Files.isDirectory(dir)) {
+            try (final Stream<Path> paths = Files.list(dir)) {
+                for (final Path path : paths.collect(Collectors.toList())) {
+                    final String name = path.getFileName().toString();
+
+                    if (name.startsWith(SEGMENT_PREFIX)) {
+                        segmentNumber = Math.max(segmentNumber, Integer.parseInt(name.substring(SEGMENT_PREFIX.length())));
+                    }
+                }
+            }
+
+            readIndex();
+        }
+    }
+
+    private Path segmentPath(final int number) {
+        return dir.resolve(String.format("%s%05d", SEGMENT_PREFIX, number));
+    }
+
+    private void readIndex() throws IOException {
+        final Path indexPath = dir.resolve(INDEX);
+
+        if (!Files.exists(indexPath)) {
+            return;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(indexPath));
+
+        int complete = 0;
+        while (buffer.remaining() >= Short.BYTES) {
+            final int idLength = buffer.getShort() & 0xFFFF;
+
+            // The last record may be incomplete if a run was interrupted while writing it
+            if (buffer.remaining() < idLength + 1 + Integer.BYTES + Long.BYTES + Integer.BYTES) {
+                break;
+            }
+
+            final byte[] id = new byte[idLength];
+            buffer.get(id);
+            final byte kind = buffer.get();
+            final Entry entry = new Entry(buffer.getInt(), buffer.getLong(), buffer.getInt());
+
+            put(kind, new String(id, StandardCharsets.UTF_8), entry);
+            complete = buffer.position();
+        }
+
+        if (complete < buffer.capacity()) {
+            try (final FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.WRITE)) {
+                channel.truncate(complete);
+            }
+        }
+    }
+
+    public synchronized void putResult(final TestRunResult testRunResult) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (final JsonWriter out = JsonCodec.writer(new OutputStreamWriter(bytes, StandardCharsets.UTF_8))) {
+            ResultsFormat.write(testRunResult, out, testRuns.resolve("results"));
+        }
+
+        final long length = bytes.size();
+        final long offset = startRecord(length);
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) {
+            segment.write(buffer);
+        }
+
+        index(RESULT, testRunResult.id(), offset, length);
+    }
+
+    public synchronized void putOutput(final String id, final Path output) throws IOException {
+        try (final FileChannel in = FileChannel.open(output, StandardOpenOption.READ)) {
+            final long length = in.size();
+            final long offset = startRecord(length);
+
+            long written = 0;
+            while (written < length) {
+                written += in.transferTo(written, length - written, segment);
+            }
+
+            index(OUTPUT, id, offset, length);
+        }
+    }
+
+    /**
+     * Makes sure there is a segment with room for the record, and returns the offset the record will start at.
+     */
+    private long startRecord(final long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Record of " + length + " bytes is too large to store");
+        }
+
+        if (segment == null) {
+            Files.createDirectories(dir);
+            segment = openSegment(segmentNumber);
+        }
+
+        if (segment.size() > 0 && segment.size() + length > SEGMENT_SIZE) {
+            segment.close();
+            segmentNumber++;
+            segment = openSegment(segmentNumber);
+        }
+
+        return segment.size();
+    }
+
+    private FileChannel openSegment(final int number) throws IOException {
+        return FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void index(final byte kind, final String id, final long offset, final long length) throws IOException {
+        final byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer record = ByteBuffer.allocate(Short.BYTES + idBytes.length + 1 + Integer.BYTES + Long.BYTES + Integer.BYTES);
+        record.putShort((short) idBytes.length).put(idBytes).put(kind)
+                .putInt(segmentNumber).putLong(offset).putInt((int) length);
+        record.flip();
+
+        if (index == null) {
+            index = FileChannel.open(dir.resolve(INDEX),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        while (record.hasRemaining()) {
+            index.write(record);
+        }
+
+        put(kind, id, new Entry(segmentNumber, offset, (int) length));
+    }
+
+    private void put(final byte kind, final String id, final Entry entry) {
+        if (kind == REMOVED) {
+            results.remove(id);
+            outputs.remove(id);
+        } else {
+            (kind == RESULT ? results : outputs).put(id, entry);
+        }
+    }
+
+    /**
+     * Removes the result and output of the test run from the index. Their records stay in their segments.
+     */
+    public synchronized void remove(final String id) throws IOException {
+        if (results.containsKey(id) || outputs.containsKey(id)) {
+            index(REMOVED, id, 0, 0);
+        }
+    }
+
+    /**
+     * The ids of the stored results, in the order they were stored.
+     */
+    public synchronized List<String> ids() {
+        return new ArrayList<>(results.keySet());
+    }
+
+    public synchronized boolean contains(final String id) {
+        return results.containsKey(id);
+    }
+
+    public Optional<TestRunResult> result(final String id) throws IOException {
+        final ByteBuffer record = record(RESULT, id);
+
+        if (record == null) {
+            return Optional.empty();
+        }
+
+        try (final JsonReader in = JsonCodec.reader(new InputStreamReader(new BufferInputStream(record), StandardCharsets.UTF_8))) {
+            return Optional.of(ResultsFormat.readTestRunResult(in, testRuns.resolve("results")));
+        }
+    }
+
+    public Optional<String> output(final String id) throws IOException {
+        final ByteBuffer record = record(OUTPUT, id);
+
+        return record == null ? Optional.empty() : Optional.of(OutputCapture.decode(new BufferInputStream(record)));
+    }
+
+    private synchronized ByteBuffer record(final byte kind, final String id) throws IOException {
+        final Entry entry = (kind == RESULT ? results : outputs).get(id);
+
+        if (entry == null) {
+            return null;
+        }
+
+        while (mapped.size() <= entry.segment) {
+            mapped.add(null);
+        }
+
+        // The current segment keeps growing, so map it again if the record is past the end of the old mapping
+        MappedByteBuffer buffer = mapped.get(entry.segment);
+        if (buffer == null || buffer.capacity() < entry.offset + entry.length) {
+            try (final FileChannel channel = FileChannel.open(segmentPath(entry.segment), StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            mapped.set(entry.segment, buffer);
+        }
+
+        final ByteBuffer record = buffer.duplicate();
+        record.position((int) entry.offset);
+        record.limit((int) (entry.offset + entry.length));
+
+        return record.slice();
+    }
+
+    /**
+     * Writes every stored result and output to its own file in test-runs/results and test-runs/output.
+     */
+    public void export() throws IOException {
+        final Path resultsDir = testRuns.resolve("results");
+        final Path outputDir = testRuns.resolve("output");
+        Files.createDirectories(resultsDir);
+        Files.createDirectories(outputDir);
+
+        for (final String id : ids()) {
+            write(record(RESULT, id), resultsDir.resolve(id));
+
+            final ByteBuffer output = record(OUTPUT, id);
+            if (output != null) {
+                write(output, outputDir.resolve(OutputCapture.isCompressed(output) ? id + OutputCapture.GZ : id));
+            }
+        }
+    }
+
+    private static void write(final ByteBuffer record, final Path path) throws IOException {
+        try (final FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        }
+    }
+
+    private synchronized void close() throws IOException {
+        if (segment != null) {
+            segment.close();
+            segment = null;
+        }
+
+        if (index != null) {
+            index.close();
+            index = null;
+        }
+
+        mapped.clear();
+    }
+
+    private static class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private BufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int off, final int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            final int n = Math.min(len, buffer.remaining());
+            buffer.get(bytes, off, n);
+            return n;
+        }
+    }
+}
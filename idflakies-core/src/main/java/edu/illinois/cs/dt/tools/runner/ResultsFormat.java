@@ -0,0 +1,319 @@
+package edu.illinois.cs.dt.tools.runner;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import edu.illinois.cs.dt.tools.runner.data.DependentTestList;
+import edu.illinois.cs.dt.tools.runner.data.OrderCodec;
+import edu.illinois.cs.dt.tools.utility.Level;
+import edu.illinois.cs.dt.tools.utility.Logger;
+import edu.illinois.cs.dt.tools.utility.PathManager;
+import edu.illinois.cs.testrunner.configuration.Configuration;
+import edu.illinois.cs.testrunner.data.results.Result;
+import edu.illinois.cs.testrunner.data.results.TestResult;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads and writes test run results and dependent test lists, in either of two formats:
+ *
+ * 1. The original format: plain JSON, with every order as a list of test names.
+ * 2. The compact format (dt.results.format=2): every order is encoded relative to the original order with
+ *    {@link OrderCodec}, and each test's result is stored by its position in the order instead of its name.
+ *    Test run results refer to a copy of the original order in test-runs/orders (named by its hash), and dependent
+ *    test lists include the original order once. Stack traces are stored once each, in test-runs/traces (see
+ *    {@link StackTraceTable}), and test run results refer to them by their hash.
+ *
+ * Readers handle both formats, so results written in either can be read no matter which format is configured.
+ * Both are read and written as streams, with {@link JsonCodec}.
+ */
+public class ResultsFormat {
+    public static final int COMPACT = 2;
+
+    private static final String ORDERS = "orders";
+    private static final Map<Path, OrderCodec> CODECS = new ConcurrentHashMap<>();
+    // By the path of the original order, since each module (e.g., in a reactor build) has its own
+    private static final Map<Path, OrderCodec> ORIGINAL_ORDER_CODECS = new ConcurrentHashMap<>();
+
+    public static int version() {
+        return Configuration.config().getProperty("dt.results.format", 1);
+    }
+
+    public static boolean compact() {
+        return version() >= COMPACT;
+    }
+
+    /**
+     * The codec for the module's original order, or null if there is no original order (in which case results are
+     * written in the original format).
+     */
+    public static synchronized OrderCodec originalOrderCodec() {
+        final Path originalOrderPath = PathManager.originalOrderPath();
+        final OrderCodec cached = ORIGINAL_ORDER_CODECS.get(originalOrderPath);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            if (Files.exists(originalOrderPath)) {
+                final OrderCodec codec = new OrderCodec(Files.readAllLines(originalOrderPath));
+                ORIGINAL_ORDER_CODECS.put(originalOrderPath, codec);
+                return codec;
+            }
+        } catch (IOException e) {
+            Logger.getGlobal().log(Level.WARNING, "Could not read the original order, so results will not be compact", e);
+        }
+
+        return null;
+    }
+
+    // Test run results
+
+    /**
+     * Writes the result to the path, in the configured format.
+     */
+    public static void write(final TestRunResult testRunResult, final Path path, final Path resultsDir) throws IOException {
+        try (final JsonWriter out = JsonCodec.writer(path)) {
+            write(testRunResult, out, resultsDir);
+        }
+    }
+
+    /**
+     * Writes the result in the configured format, as if it were written to a file in resultsDir (which is where the
+     * compact format looks for the base order).
+     */
+    public static void write(final TestRunResult testRunResult, final JsonWriter out, final Path resultsDir) throws IOException {
+        final OrderCodec codec = compact() ? originalOrderCodec() : null;
+
+        if (codec == null) {
+            JsonCodec.gson().toJson(testRunResult, TestRunResult.class, out);
+            return;
+        }
+
+        final Path basePath = resultsDir.resolveSibling(ORDERS).resolve(codec.baseHash());
+        if (!Files.exists(basePath)) {
+            // Other workers may be reading or writing the same base order, so write it somewhere else and move it in place
+            Files.createDirectories(basePath.getParent());
+            final Path temp = Files.createTempFile(basePath.getParent(), codec.baseHash(), ".tmp");
+            Files.write(temp, String.join(System.lineSeparator(), codec.base()).getBytes());
+            Files.move(temp, basePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        writeCompact(out, testRunResult, codec, resultsDir.resolveSibling(StackTraceTable.TRACES));
+    }
+
+    private static void writeCompact(final JsonWriter out, final TestRunResult testRunResult, final OrderCodec codec,
+                                     final Path tracesDir) throws IOException {
+        final TypeAdapter<Result> results = JsonCodec.gson().getAdapter(Result.class);
+
+        final List<String> order = testRunResult.testOrder();
+        final Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < order.size(); i++) {
+            positions.putIfAbsent(order.get(i), i);
+        }
+
+        final OrderCodec.Encoded encoded = codec.encode(order);
+
+        out.beginObject();
+        out.name("format").value(COMPACT);
+        out.name("id").value(testRunResult.id());
+        out.name("base").value(codec.baseHash());
+        out.name("order").value(encoded.code());
+        if (encoded.extraTests() != null) {
+            out.name("extraTests");
+            JsonCodec.writeStrings(out, encoded.extraTests());
+        }
+
+        // Each result is either an object, or just the time of a passing test in the same position in the order
+        out.name("results").beginArray();
+        int k = 0;
+        for (final Map.Entry<String, TestResult> entry : testRunResult.results().entrySet()) {
+            final TestResult testResult = entry.getValue();
+            final Integer position = positions.get(entry.getKey());
+            final boolean noStackTrace = testResult.stackTrace() == null || testResult.stackTrace().length == 0;
+
+            // Most tests pass and have results in the same order as the tests, so those are stored as just their time
+            if (position != null && position == k && Result.PASS.equals(testResult.result()) && noStackTrace) {
+                out.value(testResult.time());
+                k++;
+                continue;
+            }
+
+            // Position in the order, if different from the position in the results, or name, if not in the order
+            out.beginObject();
+            if (position == null) {
+                out.name("n").value(entry.getKey());
+            } else if (position != k) {
+                out.name("i").value(position);
+            }
+            out.name("r");
+            results.write(out, testResult.result());
+            out.name("t").value(testResult.time());
+            if (!noStackTrace) {
+                out.name("sth").value(StackTraceTable.store(tracesDir, testResult.stackTrace()));
+            }
+            out.endObject();
+            k++;
+        }
+        out.endArray();
+
+        out.endObject();
+    }
+
+    /**
+     * Reads a result written in either format.
+     */
+    public static TestRunResult readTestRunResult(final Path path) throws IOException {
+        try (final JsonReader in = JsonCodec.reader(path)) {
+            return readTestRunResult(in, path.getParent());
+        }
+    }
+
+    /**
+     * Reads a result written in either format, as if it were read from a file in resultsDir.
+     */
+    public static TestRunResult readTestRunResult(final JsonReader in, final Path resultsDir) throws IOException {
+        final TypeAdapter<TestResult> testResults = JsonCodec.gson().getAdapter(TestResult.class);
+
+        String id = null;
+        List<String> order = null;
+        String base = null;
+        String code = null;
+        List<String> extraTests = null;
+        Map<String, TestResult> results = null;
+        List<CompactTestResult> compactResults = null;
+
+        // Both formats are read field by field, so the format does not have to be known up front
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id": id = JsonCodec.nextString(in); break;
+                case "testOrder": order = JsonCodec.readStrings(in); break;
+                case "base": base = JsonCodec.nextString(in); break;
+                case "order": code = JsonCodec.nextString(in); break;
+                case "extraTests": extraTests = JsonCodec.readStrings(in); break;
+                case "results":
+                    if (in.peek() == JsonToken.BEGIN_ARRAY) {
+                        compactResults = readCompactResults(in, resultsDir.resolveSibling(StackTraceTable.TRACES));
+                    } else if (in.peek() == JsonToken.BEGIN_OBJECT) {
+                        results = new LinkedHashMap<>();
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            results.put(in.nextName(), testResults.read(in));
+                        }
+                        in.endObject();
+                    } else {
+                        in.skipValue();
+                    }
+                    break;
+                default: in.skipValue(); break;
+            }
+        }
+        in.endObject();
+
+        if (base == null) {
+            return new TestRunResult(id, order, results);
+        }
+
+        order = codec(resultsDir.resolveSibling(ORDERS).resolve(base)).decode(code, extraTests);
+
+        results = new LinkedHashMap<>();
+        if (compactResults != null) {
+            for (int k = 0; k < compactResults.size(); k++) {
+                final CompactTestResult compactResult = compactResults.get(k);
+                final String name = compactResult.n != null ? compactResult.n : order.get(compactResult.i >= 0 ? compactResult.i : k);
+                final StackTraceElement[] stackTrace = compactResult.st != null ? compactResult.st : StackTraceTable.EMPTY;
+
+                results.put(name, new TestResult(name, compactResult.r, compactResult.t, stackTrace));
+            }
+        }
+
+        return new TestRunResult(id, order, results);
+    }
+
+    private static List<CompactTestResult> readCompactResults(final JsonReader in, final Path tracesDir) throws IOException {
+        final TypeAdapter<Result> results = JsonCodec.gson().getAdapter(Result.class);
+        final TypeAdapter<StackTraceElement[]> stackTraces = JsonCodec.gson().getAdapter(StackTraceElement[].class);
+
+        final List<CompactTestResult> compactResults = new ArrayList<>();
+
+        in.beginArray();
+        while (in.hasNext()) {
+            final CompactTestResult compactResult = new CompactTestResult();
+
+            if (in.peek() == JsonToken.NUMBER) {
+                compactResult.r = Result.PASS;
+                compactResult.t = in.nextDouble();
+            } else {
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "i": compactResult.i = in.nextInt(); break;
+                        case "n": compactResult.n = JsonCodec.nextString(in); break;
+                        case "r": compactResult.r = results.read(in); break;
+                        case "t": compactResult.t = in.nextDouble(); break;
+                        case "st": compactResult.st = StackTraceTable.intern(stackTraces.read(in)); break;
+                        case "sth": compactResult.st = StackTraceTable.load(tracesDir, in.nextString()); break;
+                        default: in.skipValue(); break;
+                    }
+                }
+                in.endObject();
+            }
+
+            compactResults.add(compactResult);
+        }
+        in.endArray();
+
+        return compactResults;
+    }
+
+    private static OrderCodec codec(final Path basePath) throws IOException {
+        final OrderCodec cached = CODECS.get(basePath);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        final OrderCodec codec = new OrderCodec(Files.readAllLines(basePath));
+        CODECS.put(basePath, codec);
+
+        return codec;
+    }
+
+    // Dependent test lists
+
+    /**
+     * Writes the dependent test list to the path, in the configured format.
+     */
+    public static void writeDependentTestList(final DependentTestList dependentTestList, final Path path) throws IOException {
+        JsonCodec.write(JsonCodec.gson(compact() ? originalOrderCodec() : null), path, dependentTestList);
+    }
+
+    /**
+     * Reads a dependent test list written in either format.
+     */
+    public static DependentTestList readDependentTestList(final Path path) throws IOException {
+        return JsonCodec.read(path, DependentTestList.class);
+    }
+
+    private static class CompactTestResult {
+        // Position in the order, if different from the position in the results, or name, if not in the order
+        private int i = -1;
+        private String n;
+        private Result r;
+        private double t;
+        private StackTraceElement[] st;
+    }
+}
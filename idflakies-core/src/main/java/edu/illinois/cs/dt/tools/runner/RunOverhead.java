@@ -0,0 +1,51 @@
+package edu.illinois.cs.dt.tools.runner;
+
+import edu.illinois.cs.testrunner.data.results.TestResult;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+
+/**
+ * Tracks how much of each run's wall-clock time is spent outside of the tests themselves
+ * (forking the test JVM, loading the classpath, writing results, etc.).
+ */
+public class RunOverhead {
+    private static final RunOverhead INSTANCE = new RunOverhead();
+
+    public static RunOverhead getGlobal() {
+        return INSTANCE;
+    }
+
+    private int runs = 0;
+    private double wallSeconds = 0;
+    private double testSeconds = 0;
+
+    /**
+     * Records a run, returning the overhead of that run in seconds.
+     */
+    public synchronized double record(final double runWallSeconds, final TestRunResult testRunResult) {
+        final double runTestSeconds = testRunResult.results().values().stream().mapToDouble(TestResult::time).sum();
+
+        runs++;
+        wallSeconds += runWallSeconds;
+        testSeconds += runTestSeconds;
+
+        return Math.max(0, runWallSeconds - runTestSeconds);
+    }
+
+    public synchronized int runs() {
+        return runs;
+    }
+
+    public synchronized double overheadSeconds() {
+        return Math.max(0, wallSeconds - testSeconds);
+    }
+
+    public synchronized double meanOverheadSeconds() {
+        return runs == 0 ? 0 : overheadSeconds() / runs;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d runs, %.1f seconds total (%.1f seconds in tests), %.2f seconds of overhead per run",
+                             runs, wallSeconds, testSeconds, meanOverheadSeconds());
+    }
+}
@@ -1,7 +1,5 @@
 package edu.illinois.cs.dt.tools.runner;
 
-import com.google.gson.Gson;
-import com.reedoei.eunomia.io.files.FileUtil;
 import edu.illinois.cs.dt.tools.utility.PathManager;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
 import org.apache.commons.io.FileUtils;
@@ -10,6 +8,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 public class RunnerPathManager {
@@ -44,23 +43,81 @@ public class RunnerPathManager {
     }
 
     public static void outputResult(final Path tempOutput, final TestRunResult testRunResult) throws Exception {
+        final Path captured = OutputCapture.shouldKeep(testRunResult) ? OutputCapture.capture(tempOutput) : null;
+
+        if (ResultStore.enabled()) {
+            final ResultStore store = ResultStore.open(testRuns());
+            if (captured != null) {
+                store.putOutput(testRunResult.id(), captured);
+                Files.deleteIfExists(captured);
+            }
+            store.putResult(testRunResult);
+            Files.deleteIfExists(tempOutput);
+            return;
+        }
+
         final Path outputPath = outputPath(testRunResult);
         final Path resultPath = resultsPath(testRunResult);
 
-        Files.createDirectories(outputPath.getParent());
-        Files.move(tempOutput, outputPath);
+        if (captured != null) {
+            Files.createDirectories(outputPath.getParent());
+
+            if (captured.getFileName().toString().endsWith(OutputCapture.GZ)) {
+                Files.move(captured, outputPath.resolveSibling(outputPath.getFileName() + OutputCapture.GZ));
+            } else {
+                Files.move(captured, outputPath);
+            }
+        }
+        Files.deleteIfExists(tempOutput);
+
+        Files.createDirectories(resultPath.getParent());
+        ResultsFormat.write(testRunResult, resultPath, resultsPath());
+    }
+
+    /**
+     * Saves a result that was not produced by a single run (so there is no output to save), e.g., merged shards.
+     */
+    public static void outputResult(final TestRunResult testRunResult) throws IOException {
+        if (ResultStore.enabled()) {
+            ResultStore.open(testRuns()).putResult(testRunResult);
+            return;
+        }
+
+        final Path resultPath = resultsPath(testRunResult);
 
         Files.createDirectories(resultPath.getParent());
-        Files.write(resultPath, testRunResult.toString().getBytes());
+        ResultsFormat.write(testRunResult, resultPath, resultsPath());
+    }
+
+    /**
+     * Deletes the saved result and output of a run whose result is not used.
+     */
+    public static void discardResult(final String id) throws IOException {
+        if (ResultStore.exists(testRuns())) {
+            ResultStore.open(testRuns()).remove(id);
+        }
+
+        Files.deleteIfExists(resultsPath(id));
+        Files.deleteIfExists(outputPath(id));
+        Files.deleteIfExists(outputPath().resolve(id + OutputCapture.GZ));
     }
 
     public static void clearTestRuns() throws IOException {
+        ResultStore.close(testRuns());
         FileUtils.deleteDirectory(testRuns().toFile());
     }
 
     public static Stream<TestRunResult> resultFor(final String trKey) {
         try {
-            return Stream.of(new Gson().fromJson(FileUtil.readFile(resultsPath(trKey)), TestRunResult.class));
+            if (ResultStore.exists(testRuns())) {
+                final Optional<TestRunResult> stored = ResultStore.open(testRuns()).result(trKey);
+
+                if (stored.isPresent()) {
+                    return Stream.of(stored.get());
+                }
+            }
+
+            return Stream.of(ResultsFormat.readTestRunResult(resultsPath(trKey)));
         } catch (IOException ignored) {}
 
         return Stream.empty();
@@ -0,0 +1,97 @@
+package edu.illinois.cs.dt.tools.runner;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import edu.illinois.cs.testrunner.configuration.Configuration;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+import edu.illinois.cs.testrunner.runner.Runner;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A fixed number of InstrumentingSmartRunners that run test orders concurrently, each in its own forked JVM.
+ * Each runner only ever runs one order at a time.
+ */
+public class RunnerPool implements AutoCloseable {
+    public static int workers() {
+        return Math.max(1, Configuration.config().getProperty("dt.detector.parallel.workers", 1));
+    }
+
+    private final BlockingQueue<InstrumentingSmartRunner> idle = new LinkedBlockingQueue<>();
+    private final ExecutorService executor;
+    private final int size;
+
+    public RunnerPool(final Runner runner, final File baseDir) {
+        this(runner, baseDir, workers());
+    }
+
+    public RunnerPool(final Runner runner, final File baseDir, final int size) {
+        this.size = size;
+
+        for (int i = 0; i < size; i++) {
+            idle.add(InstrumentingSmartRunner.fromRunner(runner, baseDir));
+        }
+
+        // Daemon threads, so a pool that is never closed does not keep the build alive
+        this.executor = Executors.newFixedThreadPool(size,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("idflakies-runner-%d").build());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Runs the order on the next idle runner. Cancelling the future does not stop a run that has already started,
+     * since the test JVM is not ours to stop, so callers that no longer need a result should wait for it and discard it.
+     */
+    public CompletableFuture<TestRunResult> submit(final List<String> order) {
+        return CompletableFuture.supplyAsync(() -> {
+            final InstrumentingSmartRunner runner;
+            try {
+                runner = idle.take();
+            } catch (InterruptedException e) {
+                throw new CompletionException(e);
+            }
+
+            try {
+                return runner.runList(order).get();
+            } finally {
+                idle.add(runner);
+            }
+        }, executor);
+    }
+
+    /**
+     * Runs all of the orders, spread across the runners, and returns the results in the same order as the orders.
+     */
+    public List<TestRunResult> runAll(final List<List<String>> orders) throws InterruptedException, ExecutionException {
+        final List<Future<TestRunResult>> futures = new ArrayList<>();
+
+        for (final List<String> order : orders) {
+            futures.add(submit(order));
+        }
+
+        final List<TestRunResult> results = new ArrayList<>();
+
+        for (final Future<TestRunResult> future : futures) {
+            results.add(future.get());
+        }
+
+        return results;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,132 @@
+package edu.illinois.cs.dt.tools.runner;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Stack traces of failing tests, stored once and referred to by the hash of their contents.
+ *
+ * In the compact results format, each distinct stack trace is stored in test-runs/traces, named by its hash, and
+ * results refer to it by the hash, so a test that fails the same way in many rounds only stores its trace once.
+ * Traces are also interned when they are read (in either format), so all results with the same trace share one array.
+ */
+public class StackTraceTable {
+    public static final String TRACES = "traces";
+
+    public static final StackTraceElement[] EMPTY = new StackTraceElement[0];
+
+    private static final int MAX_CACHED = 1 << 16;
+
+    // All bounded, so reading many unrelated results (e.g., in Analysis) does not keep every trace ever seen
+    private static final ConcurrentMap<Trace, StackTraceElement[]> INTERNED =
+            CacheBuilder.newBuilder().maximumSize(MAX_CACHED).<Trace, StackTraceElement[]>build().asMap();
+    private static final ConcurrentMap<Path, StackTraceElement[]> LOADED =
+            CacheBuilder.newBuilder().maximumSize(MAX_CACHED).<Path, StackTraceElement[]>build().asMap();
+    private static final Set<Path> STORED =
+            Collections.newSetFromMap(CacheBuilder.newBuilder().maximumSize(MAX_CACHED).<Path, Boolean>build().asMap());
+
+    /**
+     * An equal trace that has been seen before, if any, or this one.
+     */
+    public static StackTraceElement[] intern(final StackTraceElement[] trace) {
+        if (trace == null) {
+            return null;
+        } else if (trace.length == 0) {
+            return EMPTY;
+        }
+
+        final StackTraceElement[] interned = INTERNED.putIfAbsent(new Trace(trace), trace);
+        return interned == null ? trace : interned;
+    }
+
+    public static String hash(final StackTraceElement[] trace) {
+        final Hasher hasher = Hashing.murmur3_128().newHasher();
+
+        for (final StackTraceElement element : trace) {
+            hasher.putString(element.getClassName(), StandardCharsets.UTF_8).putByte((byte) 0)
+                  .putString(element.getMethodName(), StandardCharsets.UTF_8).putByte((byte) 0)
+                  .putString(String.valueOf(element.getFileName()), StandardCharsets.UTF_8).putByte((byte) 0)
+                  .putInt(element.getLineNumber());
+        }
+
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Stores the trace in the table in the directory, unless it is already there, and returns its hash.
+     */
+    public static String store(final Path tracesDir, final StackTraceElement[] trace) throws IOException {
+        final String hash = hash(trace);
+        final Path path = tracesDir.resolve(hash);
+
+        if (STORED.contains(path) || Files.exists(path)) {
+            STORED.add(path);
+            return hash;
+        }
+
+        // Other runs may be storing the same trace at the same time, so write it somewhere else and move it in place
+        Files.createDirectories(tracesDir);
+        final Path temp = Files.createTempFile(tracesDir, hash, ".tmp");
+        try (final JsonWriter out = JsonCodec.writer(temp)) {
+            JsonCodec.gson().toJson(trace, StackTraceElement[].class, out);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        STORED.add(path);
+        LOADED.putIfAbsent(path, intern(trace));
+
+        return hash;
+    }
+
+    public static StackTraceElement[] load(final Path tracesDir, final String hash) throws IOException {
+        final Path path = tracesDir.resolve(hash);
+        final StackTraceElement[] loaded = LOADED.get(path);
+
+        if (loaded != null) {
+            return loaded;
+        }
+
+        final StackTraceElement[] trace;
+        try (final JsonReader in = JsonCodec.reader(path)) {
+            trace = JsonCodec.gson().fromJson(in, StackTraceElement[].class);
+        }
+
+        final StackTraceElement[] interned = intern(trace);
+        LOADED.put(path, interned);
+
+        return interned;
+    }
+
+    private static class Trace {
+        private final StackTraceElement[] trace;
+        private final int hashCode;
+
+        private Trace(final StackTraceElement[] trace) {
+            this.trace = trace;
+            this.hashCode = Arrays.hashCode(trace);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Trace && Arrays.equals(trace, ((Trace) o).trace);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
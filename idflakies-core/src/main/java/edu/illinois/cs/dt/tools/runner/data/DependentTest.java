@@ -1,6 +1,6 @@
 package edu.illinois.cs.dt.tools.runner.data;
 
-import com.google.gson.Gson;
+import edu.illinois.cs.dt.tools.runner.JsonCodec;
 import edu.illinois.cs.testrunner.configuration.Configuration;
 import edu.illinois.cs.testrunner.runner.Runner;
 
@@ -16,6 +16,8 @@ public class DependentTest {
 
     private DependentTestType type;
 
+    private MinimizedOrders minimized;
+
     public DependentTest(final String name, final TestRun intended, final TestRun revealed) {
         this.name = name;
         this.intended = intended;
@@ -43,12 +45,34 @@ public class DependentTest {
         this.type = type;
     }
 
+    /**
+     * The minimized orders for this test, if it has been minimized (dt.minimize).
+     */
+    public MinimizedOrders minimized() {
+        return minimized;
+    }
+
+    public void setMinimized(final MinimizedOrders minimized) {
+        this.minimized = minimized;
+    }
+
+    /**
+     * The run to verify the intended result with: the minimized one if there is one, because it is much shorter.
+     */
+    public TestRun intendedToVerify() {
+        return minimized == null ? intended : minimized.intended();
+    }
+
+    public TestRun revealedToVerify() {
+        return minimized == null ? revealed : minimized.revealed();
+    }
+
     @Override
     public String toString() {
-        return new Gson().toJson(this);
+        return JsonCodec.gson().toJson(this);
     }
 
     public boolean verify(final Runner runner, final Path path) {
-        return intended.verify(name, runner, path) && revealed.verify(name, runner, path);
+        return intendedToVerify().verify(name, runner, path) && revealedToVerify().verify(name, runner, path);
     }
 }
@@ -1,9 +1,9 @@
 package edu.illinois.cs.dt.tools.runner.data;
 
 import com.google.common.base.Preconditions;
-import com.google.gson.Gson;
 import com.reedoei.eunomia.collections.ListUtil;
-import com.reedoei.eunomia.io.files.FileUtil;
+import edu.illinois.cs.dt.tools.runner.JsonCodec;
+import edu.illinois.cs.dt.tools.runner.ResultsFormat;
 import edu.illinois.cs.dt.tools.utility.Level;
 import edu.illinois.cs.dt.tools.utility.Logger;
 import edu.illinois.cs.testrunner.data.results.Result;
@@ -24,7 +24,7 @@ public class DependentTestList {
 
     public static DependentTestList fromFile(final Path path) throws IOException {
         Logger.getGlobal().log(Level.INFO, "Reading dependent test list from " + path);
-        return new Gson().fromJson(FileUtil.readFile(path), DependentTestList.class);
+        return ResultsFormat.readDependentTestList(path);
     }
 
     @Deprecated
@@ -71,7 +71,14 @@ public class DependentTestList {
 
     @Override
     public String toString() {
-        return new Gson().toJson(this);
+        return JsonCodec.gson().toJson(this);
+    }
+
+    /**
+     * Saves the list in the configured results format (dt.results.format).
+     */
+    public void save(final Path path) throws IOException {
+        ResultsFormat.writeDependentTestList(this, path);
     }
 
     public int size() {
@@ -0,0 +1,66 @@
+package edu.illinois.cs.dt.tools.runner.data;
+
+import edu.illinois.cs.dt.tools.runner.JsonCodec;
+
+import java.util.List;
+
+/**
+ * The smallest orders found that still give a dependent test its intended and revealed results,
+ * along with the tests responsible for the difference.
+ */
+public class MinimizedOrders {
+    private final TestRun intended;
+    private final TestRun revealed;
+
+    // Tests from the revealed order that make the dependent test get its revealed result (empty if it gets it alone)
+    private final List<String> polluters;
+    // Tests from the intended order that make the dependent test get its intended result (empty if it gets it alone)
+    private final List<String> stateSetters;
+    // Tests from the intended order that undo the polluters' effects, when the polluters are in the intended order too
+    private final List<String> cleaners;
+
+    private final int runs;
+
+    public MinimizedOrders(final TestRun intended, final TestRun revealed,
+                           final List<String> polluters, final List<String> stateSetters, final List<String> cleaners,
+                           final int runs) {
+        this.intended = intended;
+        this.revealed = revealed;
+        this.polluters = polluters;
+        this.stateSetters = stateSetters;
+        this.cleaners = cleaners;
+        this.runs = runs;
+    }
+
+    public TestRun intended() {
+        return intended;
+    }
+
+    public TestRun revealed() {
+        return revealed;
+    }
+
+    public List<String> polluters() {
+        return polluters;
+    }
+
+    public List<String> stateSetters() {
+        return stateSetters;
+    }
+
+    public List<String> cleaners() {
+        return cleaners;
+    }
+
+    /**
+     * The number of test runs that minimizing took.
+     */
+    public int runs() {
+        return runs;
+    }
+
+    @Override
+    public String toString() {
+        return JsonCodec.gson().toJson(this);
+    }
+}
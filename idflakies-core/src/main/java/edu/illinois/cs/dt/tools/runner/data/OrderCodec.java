@@ -0,0 +1,141 @@
+package edu.illinois.cs.dt.tools.runner.data;
+
+import edu.illinois.cs.dt.tools.utility.OrderFingerprint;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes orders relative to a base order (usually the original order), as the runs of consecutive tests that they
+ * share with it. For example, if the base order is [a, b, c, d, e], then [c, d, e, a, b] is "2-4,0-1" and its reverse
+ * [b, a, e, d, c] is "1-0,4-2". Tests that are not in the base order are kept by name, as "~i" for extraTests[i].
+ *
+ * Orders that run classes in a different order, but each class's tests together, take one run per class, so their
+ * encoding is about as long as the list of classes rather than the list of tests.
+ */
+public class OrderCodec {
+    public static class Encoded {
+        private final String code;
+        private final List<String> extraTests;
+
+        public Encoded(final String code, final List<String> extraTests) {
+            this.code = code;
+            this.extraTests = extraTests;
+        }
+
+        public String code() {
+            return code;
+        }
+
+        /**
+         * The tests that are not in the base order, or null if there are none.
+         */
+        public List<String> extraTests() {
+            return extraTests;
+        }
+    }
+
+    private final List<String> base;
+    private final String baseHash;
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    public OrderCodec(final List<String> base) {
+        this.base = TestOrder.of(base);
+        this.baseHash = hash(base);
+
+        for (int i = 0; i < base.size(); i++) {
+            positions.putIfAbsent(base.get(i), i);
+        }
+    }
+
+    public static String hash(final List<String> base) {
+        return OrderFingerprint.of(base).toString();
+    }
+
+    public List<String> base() {
+        return base;
+    }
+
+    public String baseHash() {
+        return baseHash;
+    }
+
+    public Encoded encode(final List<String> order) {
+        final StringBuilder code = new StringBuilder();
+        final List<String> extraTests = new ArrayList<>();
+
+        int i = 0;
+        while (i < order.size()) {
+            if (code.length() > 0) {
+                code.append(',');
+            }
+
+            final Integer start = positions.get(order.get(i));
+
+            if (start == null) {
+                code.append('~').append(extraTests.size());
+                extraTests.add(order.get(i));
+                i++;
+                continue;
+            }
+
+            // Extend the run for as long as the order follows the base order, forwards or backwards
+            int end = start;
+            int step = 0;
+            while (i + 1 < order.size()) {
+                final Integer next = positions.get(order.get(i + 1));
+
+                if (next == null || (step != 0 && next != end + step) || (step == 0 && Math.abs(next - end) != 1)) {
+                    break;
+                }
+
+                step = next - end;
+                end = next;
+                i++;
+            }
+            i++;
+
+            code.append(start);
+            if (end != start) {
+                code.append('-').append(end);
+            }
+        }
+
+        return new Encoded(code.toString(), extraTests.isEmpty() ? null : extraTests);
+    }
+
+    public List<String> decode(final Encoded encoded) {
+        return decode(encoded.code(), encoded.extraTests());
+    }
+
+    public List<String> decode(final String code, final List<String> extraTests) {
+        final List<String> order = new ArrayList<>();
+
+        if (code.isEmpty()) {
+            return order;
+        }
+
+        for (final String token : code.split(",")) {
+            if (token.startsWith("~")) {
+                order.add(extraTests.get(Integer.parseInt(token.substring(1))));
+                continue;
+            }
+
+            final int dash = token.indexOf('-');
+            final int start = Integer.parseInt(dash == -1 ? token : token.substring(0, dash));
+            final int end = dash == -1 ? start : Integer.parseInt(token.substring(dash + 1));
+
+            if (start <= end) {
+                order.addAll(base.subList(start, end + 1));
+            } else {
+                for (int j = start; j >= end; j--) {
+                    order.add(base.get(j));
+                }
+            }
+        }
+
+        return order;
+    }
+}
@@ -0,0 +1,266 @@
+package edu.illinois.cs.dt.tools.runner.data;
+
+import edu.illinois.cs.dt.tools.runner.RunnerPathManager;
+import edu.illinois.cs.dt.tools.runner.RunnerPool;
+import edu.illinois.cs.dt.tools.utility.Level;
+import edu.illinois.cs.dt.tools.utility.Logger;
+import edu.illinois.cs.testrunner.data.results.Result;
+import edu.illinois.cs.testrunner.data.results.TestResult;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+import edu.illinois.cs.testrunner.runner.Runner;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Shrinks the orders of a dependent test with delta debugging (ddmin), keeping only the tests that are needed for it
+ * to still get its intended and revealed results. All of the candidate orders in each step of ddmin are run together,
+ * concurrently when a pool is available. Only the results of the runs that show the minimized orders are kept; the
+ * rest are deleted once minimization is done.
+ */
+public class OrderMinimizer {
+    /**
+     * A subset of some tests, together with the id of the run that showed that it gives the expected result.
+     */
+    private static class Candidate {
+        private final List<String> tests;
+        private final String testRunId;
+
+        private Candidate(final List<String> tests, final String testRunId) {
+            this.tests = tests;
+            this.testRunId = testRunId;
+        }
+    }
+
+    private final Runner runner;
+    private final RunnerPool pool;
+    private int runs = 0;
+    private final List<String> runIds = new ArrayList<>();
+
+    /**
+     * If pool is null, all orders run on runner.
+     */
+    public OrderMinimizer(final Runner runner, final RunnerPool pool) {
+        this.runner = runner;
+        this.pool = pool;
+    }
+
+    /**
+     * Minimizes the orders of the dependent test, or returns empty if its orders no longer give it
+     * its intended and revealed results.
+     */
+    public Optional<MinimizedOrders> minimize(final DependentTest dependentTest) {
+        runs = 0;
+        runIds.clear();
+
+        final String dt = dependentTest.name();
+        final Result intendedResult = dependentTest.intended().result();
+        final Result revealedResult = dependentTest.revealed().result();
+
+        final Optional<Candidate> revealed = minimize(dt, Collections.emptyList(), dependentTest.revealed().order(), revealedResult);
+        final Optional<Candidate> intended = minimize(dt, Collections.emptyList(), dependentTest.intended().order(), intendedResult);
+
+        if (!revealed.isPresent() || !intended.isPresent()) {
+            Logger.getGlobal().log(Level.INFO, "Could not minimize " + dt + ", because its orders did not reproduce its results");
+            discardRunsExcept(Collections.emptyList());
+            return Optional.empty();
+        }
+
+        final List<String> polluters = revealed.get().tests;
+        final List<String> stateSetters = intended.get().tests;
+        final List<String> cleaners = cleaners(dt, polluters, dependentTest.intended().order(), intendedResult);
+
+        // The minimized orders refer to the runs that showed them, so those are the only ones worth keeping
+        discardRunsExcept(Arrays.asList(intended.get().testRunId, revealed.get().testRunId));
+
+        Logger.getGlobal().log(Level.INFO, String.format("Minimized %s in %d runs: %d polluters, %d state setters, %d cleaners",
+                                                         dt, runs, polluters.size(), stateSetters.size(), cleaners.size()));
+
+        return Optional.of(new MinimizedOrders(
+                new TestRun(stateSetters, intendedResult, intended.get().testRunId),
+                new TestRun(polluters, revealedResult, revealed.get().testRunId),
+                polluters, stateSetters, cleaners, runs));
+    }
+
+    /**
+     * If all of the polluters also run before the test in the intended order, some of the tests between them must be
+     * undoing the polluters' effects. Finds the fewest of those that still do.
+     */
+    private List<String> cleaners(final String dt, final List<String> polluters,
+                                  final List<String> intendedOrder, final Result intendedResult) {
+        if (polluters.isEmpty() || !intendedOrder.containsAll(polluters)) {
+            return Collections.emptyList();
+        }
+
+        final int lastPolluter = polluters.stream().mapToInt(intendedOrder::indexOf).max().orElse(-1);
+        final List<String> candidates = new ArrayList<>(intendedOrder.subList(lastPolluter + 1, intendedOrder.size()));
+
+        return minimize(dt, polluters, candidates, intendedResult).map(c -> c.tests).orElse(Collections.emptyList());
+    }
+
+    /**
+     * Finds a minimal subset of tests such that running before + subset + dt gives dt the expected result,
+     * or empty if running all of the tests does not.
+     */
+    private Optional<Candidate> minimize(final String dt, final List<String> before,
+                                         final List<String> tests, final Result expected) {
+        final List<List<String>> first = new ArrayList<>();
+        first.add(Collections.emptyList());
+        first.add(tests);
+
+        final List<Optional<String>> firstResults = tryAll(dt, before, first, expected);
+
+        if (firstResults.get(0).isPresent()) {
+            return Optional.of(new Candidate(Collections.emptyList(), firstResults.get(0).get()));
+        } else if (!firstResults.get(1).isPresent()) {
+            return Optional.empty();
+        }
+
+        List<String> current = tests;
+        String currentRunId = firstResults.get(1).get();
+        int n = 2;
+
+        while (current.size() > 1) {
+            final List<List<String>> chunks = split(current, n);
+            final List<List<String>> complements = new ArrayList<>();
+
+            if (n > 2) {
+                for (final List<String> chunk : chunks) {
+                    final List<String> complement = new ArrayList<>(current);
+                    complement.removeAll(chunk);
+                    complements.add(complement);
+                }
+            }
+
+            final List<List<String>> candidates = new ArrayList<>(chunks);
+            candidates.addAll(complements);
+            final List<Optional<String>> results = tryAll(dt, before, candidates, expected);
+
+            final int found = firstPresent(results);
+
+            if (found != -1 && found < chunks.size()) {
+                // Reduce to the chunk
+                current = chunks.get(found);
+                n = 2;
+            } else if (found != -1) {
+                // Reduce to the complement
+                current = complements.get(found - chunks.size());
+                n = Math.max(n - 1, 2);
+            } else if (n >= current.size()) {
+                break;
+            } else {
+                n = Math.min(2 * n, current.size());
+                continue;
+            }
+
+            currentRunId = results.get(found).get();
+        }
+
+        return Optional.of(new Candidate(current, currentRunId));
+    }
+
+    private void discardRunsExcept(final List<String> kept) {
+        for (final String id : runIds) {
+            if (!kept.contains(id)) {
+                try {
+                    RunnerPathManager.discardResult(id);
+                } catch (IOException e) {
+                    Logger.getGlobal().log(Level.WARNING, "Could not discard the result of " + id, e);
+                }
+            }
+        }
+
+        runIds.clear();
+    }
+
+    private static int firstPresent(final List<Optional<String>> results) {
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).isPresent()) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static List<List<String>> split(final List<String> tests, final int n) {
+        final List<List<String>> chunks = new ArrayList<>();
+
+        int start = 0;
+        for (int i = 0; i < n; i++) {
+            final int end = start + (tests.size() - start) / (n - i);
+            chunks.add(new ArrayList<>(tests.subList(start, end)));
+            start = end;
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Runs before + subset + dt for each subset, returning the id of the run if dt got the expected result.
+     */
+    private List<Optional<String>> tryAll(final String dt, final List<String> before,
+                                          final List<List<String>> subsets, final Result expected) {
+        final List<List<String>> orders = new ArrayList<>();
+
+        for (final List<String> subset : subsets) {
+            final List<String> order = new ArrayList<>(before);
+            order.addAll(subset);
+            order.add(dt);
+            orders.add(order);
+        }
+
+        runs += orders.size();
+
+        final List<Optional<String>> results = new ArrayList<>();
+
+        if (pool == null) {
+            for (final List<String> order : orders) {
+                TestRunResult result = null;
+                try {
+                    result = runner.runList(order).get();
+                } catch (Exception ignored) {}
+
+                results.add(check(dt, result, expected));
+            }
+        } else {
+            final List<Future<TestRunResult>> futures = new ArrayList<>();
+            orders.forEach(order -> futures.add(pool.submit(order)));
+
+            for (final Future<TestRunResult> future : futures) {
+                TestRunResult result = null;
+                try {
+                    result = future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ignored) {}
+
+                results.add(check(dt, result, expected));
+            }
+        }
+
+        return results;
+    }
+
+    private Optional<String> check(final String dt, final TestRunResult result, final Result expected) {
+        if (result == null) {
+            return Optional.empty();
+        }
+
+        runIds.add(result.id());
+
+        final TestResult testResult = result.results().get(dt);
+
+        if (testResult != null && expected.equals(testResult.result())) {
+            return Optional.of(result.id());
+        }
+
+        return Optional.empty();
+    }
+}
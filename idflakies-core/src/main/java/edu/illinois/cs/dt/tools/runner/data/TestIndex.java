@@ -0,0 +1,66 @@
+package edu.illinois.cs.dt.tools.runner.data;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives each test name a small integer id, so that orders can be stored as arrays of ids (see {@link TestOrder})
+ * and every test name is only kept in memory once, no matter how many orders it appears in.
+ */
+public class TestIndex {
+    private static final TestIndex INSTANCE = new TestIndex();
+
+    public static TestIndex getGlobal() {
+        return INSTANCE;
+    }
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[1024];
+    private int size = 0;
+
+    public int id(final String name) {
+        final Integer id = ids.get(name);
+
+        return id != null ? id : add(name);
+    }
+
+    /**
+     * The id of the test, or -1 if no order has contained it (including anything that is not a test name, e.g. null,
+     * since lists may be asked whether they contain anything).
+     */
+    public int idIfPresent(final Object name) {
+        if (!(name instanceof String)) {
+            return -1;
+        }
+
+        final Integer id = ids.get(name);
+
+        return id != null ? id : -1;
+    }
+
+    public String name(final int id) {
+        return names[id];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized int add(final String name) {
+        final Integer existing = ids.get(name);
+        if (existing != null) {
+            return existing;
+        }
+
+        if (size == names.length) {
+            names = Arrays.copyOf(names, names.length * 2);
+        }
+
+        final int id = size++;
+        names[id] = name;
+        // Only publish the id once its name can be looked up
+        ids.put(name, id);
+
+        return id;
+    }
+}
@@ -0,0 +1,207 @@
+package edu.illinois.cs.dt.tools.runner.data;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An immutable order of tests, stored as the tests' ids in the {@link TestIndex}. Sublists (e.g., the tests that run
+ * before some test) share the array of the order they came from instead of copying it.
+ *
+ * Serializes to JSON as a plain list of test names, so it can be read back as any other list.
+ */
+public class TestOrder extends AbstractList<String> implements RandomAccess {
+    private static final TestOrder EMPTY = new TestOrder(new int[0], 0, 0);
+
+    public static TestOrder of(final List<String> tests) {
+        if (tests instanceof TestOrder) {
+            return (TestOrder) tests;
+        } else if (tests.isEmpty()) {
+            return EMPTY;
+        }
+
+        final TestIndex index = TestIndex.getGlobal();
+        final int[] ids = new int[tests.size()];
+
+        int i = 0;
+        for (final String test : tests) {
+            ids[i++] = index.id(test);
+        }
+
+        return new TestOrder(ids, 0, ids.length);
+    }
+
+    private final int[] ids;
+    private final int from;
+    private final int size;
+
+    private TestOrder(final int[] ids, final int from, final int size) {
+        this.ids = ids;
+        this.from = from;
+        this.size = size;
+    }
+
+    public int id(final int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+
+        return ids[from + i];
+    }
+
+    @Override
+    public String get(final int i) {
+        return TestIndex.getGlobal().name(id(i));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int indexOf(final Object o) {
+        final int id = TestIndex.getGlobal().idIfPresent(o);
+
+        if (id != -1) {
+            for (int i = 0; i < size; i++) {
+                if (ids[from + i] == id) {
+                    return i;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public int lastIndexOf(final Object o) {
+        final int id = TestIndex.getGlobal().idIfPresent(o);
+
+        if (id != -1) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (ids[from + i] == id) {
+                    return i;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return indexOf(o) != -1;
+    }
+
+    @Override
+    public TestOrder subList(final int fromIndex, final int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex + ", Size: " + size);
+        }
+
+        return new TestOrder(ids, from + fromIndex, toIndex - fromIndex);
+    }
+
+    /**
+     * The tests before the given test, or an empty order if the test is not in this order.
+     */
+    public TestOrder before(final String test) {
+        final int i = indexOf(test);
+
+        return i == -1 ? EMPTY : subList(0, i);
+    }
+
+    /**
+     * Like {@link #before(String)}, but finds the test with the positions from {@link #positions()} instead of
+     * searching this order for it.
+     */
+    public TestOrder before(final String test, final int[] positions) {
+        final int i = position(test, positions);
+
+        return i == -1 ? EMPTY : subList(0, i);
+    }
+
+    /**
+     * The position of the test in positions from {@link #positions()}, or -1 if it is not in that order.
+     */
+    public static int position(final String test, final int[] positions) {
+        final int id = TestIndex.getGlobal().idIfPresent(test);
+
+        // Tests with larger ids than any in the order (e.g., added to the index later) cannot be in it
+        return id >= 0 && id < positions.length ? positions[id] : -1;
+    }
+
+    /**
+     * Hashes of every prefix of this order, computed in one pass: element i is the hash of the first i tests.
+     * The hashes are of the tests' ids, so they can only be compared to other hashes from the same JVM.
+     */
+    public long[] prefixHashes() {
+        final long[] hashes = new long[size + 1];
+
+        long hash = 0;
+        for (int i = 0; i < size; i++) {
+            hashes[i] = hash;
+            hash = mix(hash + ids[from + i] + 1);
+        }
+        hashes[size] = hash;
+
+        return hashes;
+    }
+
+    // The finalizer from SplitMix64, so the hash depends on the order of the tests and not just which tests they are
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * The position of each test in this order, indexed by the test's id, or -1 for tests that are not in it.
+     * If a test appears more than once, its first position (like {@link #indexOf(Object)}). Only as long as the
+     * largest id in this order, rather than every test in the index, since other modules' tests are indexed too.
+     */
+    public int[] positions() {
+        int maxId = -1;
+        for (int i = 0; i < size; i++) {
+            maxId = Math.max(maxId, ids[from + i]);
+        }
+
+        final int[] positions = new int[maxId + 1];
+        Arrays.fill(positions, -1);
+
+        for (int i = size - 1; i >= 0; i--) {
+            positions[ids[from + i]] = i;
+        }
+
+        return positions;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (o instanceof TestOrder) {
+            final TestOrder other = (TestOrder) o;
+
+            if (size != other.size) {
+                return false;
+            }
+
+            for (int i = 0; i < size; i++) {
+                if (ids[from + i] != other.ids[other.from + i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        // Must agree with List.hashCode, so equal lists of names have equal hash codes
+        return super.hashCode();
+    }
+}
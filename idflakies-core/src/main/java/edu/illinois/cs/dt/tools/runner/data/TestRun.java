@@ -1,5 +1,6 @@
 package edu.illinois.cs.dt.tools.runner.data;
 
+import edu.illinois.cs.dt.tools.runner.JsonCodec;
 import edu.illinois.cs.dt.tools.utility.PathManager;
 import edu.illinois.cs.testrunner.configuration.Configuration;
 import edu.illinois.cs.testrunner.data.results.Result;
@@ -20,7 +21,7 @@ public class TestRun {
     private final String testRunId;
 
     public TestRun(final List<String> order, final Result result, final String testRunId) {
-        this.order = order;
+        this.order = TestOrder.of(order);
         this.result = result;
         this.testRunId = testRunId;
     }
@@ -37,26 +38,50 @@ public class TestRun {
         return testRunId;
     }
 
+    public static int verifyRounds() {
+        return VERIFY_ROUNDS;
+    }
+
     public boolean verify(final String dt, final Runner runner, final Path path) {
         return IntStream.range(0, VERIFY_ROUNDS)
                 .allMatch(i -> verifyRound(dt, runner, path, i));
     }
 
+    /**
+     * The order that is run to verify that dt still has this result: this run's order, followed by dt.
+     */
+    public List<String> verificationOrder(final String dt) {
+        final List<String> order = new ArrayList<>(this.order);
+        if (!order.contains(dt)) {
+            order.add(dt);
+        }
+        return order;
+    }
+
     private boolean verifyRound(final String dt, final Runner runner, final Path path, final int i) {
-        Result newResult = null;
+        TestRunResult results = null;
         try {
-            final List<String> order = new ArrayList<>(this.order);
-            if (!order.contains(dt)) {
-                order.add(dt);
-            }
-            final TestRunResult results = runner.runList(order).get();
+            results = runner.runList(verificationOrder(dt)).get();
+        } catch (Exception ignored) {}
+
+        return checkVerification(dt, results, path, i);
+    }
 
-            newResult = results.results().get(dt).result();
+    /**
+     * Checks the results of running {@link #verificationOrder(String)} (null if the run failed),
+     * saving them to the path, if any.
+     */
+    public boolean checkVerification(final String dt, final TestRunResult results, final Path path, final int i) {
+        Result newResult = null;
+        try {
+            if (results != null) {
+                newResult = results.results().get(dt).result();
 
-            if (path != null) {
-                final Path outputPath = PathManager.pathWithRound(path, dt + "-" + this.result, i);
-                Files.createDirectories(outputPath.getParent());
-                Files.write(outputPath, results.toString().getBytes());
+                if (path != null) {
+                    final Path outputPath = PathManager.pathWithRound(path, dt + "-" + this.result, i);
+                    Files.createDirectories(outputPath.getParent());
+                    JsonCodec.write(outputPath, results);
+                }
             }
         } catch (Exception ignored) {}
 
@@ -0,0 +1,155 @@
+package edu.illinois.cs.dt.tools.runner.data;
+
+import edu.illinois.cs.dt.tools.runner.RunnerPool;
+import edu.illinois.cs.dt.tools.utility.OrderFingerprint;
+import edu.illinois.cs.testrunner.configuration.Configuration;
+import edu.illinois.cs.testrunner.data.results.TestRunResult;
+import edu.illinois.cs.testrunner.runner.Runner;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Verifies many dependent tests together, as {@link DependentTest#verify(Runner, Path)} would verify each of them.
+ * Identical verification orders are only run once, and the orders are run concurrently when a pool is available.
+ */
+public class VerificationBatch {
+    private static class Check {
+        private final DependentTest dependentTest;
+        private final TestRun testRun;
+        private final Path path;
+        private final int round;
+        private final String orderKey;
+
+        private Check(final DependentTest dependentTest, final TestRun testRun, final Path path,
+                      final int round, final String orderKey) {
+            this.dependentTest = dependentTest;
+            this.testRun = testRun;
+            this.path = path;
+            this.round = round;
+            this.orderKey = orderKey;
+        }
+    }
+
+    private static final boolean PLAN_PREFIXES = Configuration.config().getProperty("dt.verify.plan.prefixes", false);
+
+    private final List<Check> checks = new ArrayList<>();
+    private final Map<String, List<String>> orders = new LinkedHashMap<>();
+    private final Map<String, Integer> orderRounds = new HashMap<>();
+
+    public void add(final DependentTest dependentTest, final Path path) {
+        add(dependentTest, dependentTest.intendedToVerify(), path);
+        add(dependentTest, dependentTest.revealedToVerify(), path);
+    }
+
+    private void add(final DependentTest dependentTest, final TestRun testRun, final Path path) {
+        final List<String> order = testRun.verificationOrder(dependentTest.name());
+        final String hash = OrderFingerprint.of(order).toString();
+
+        for (int i = 0; i < TestRun.verifyRounds(); i++) {
+            // Repeating an order across verification rounds is intentional, so only dedup within the same round
+            final String orderKey = hash + "-" + i;
+            orders.putIfAbsent(orderKey, order);
+            orderRounds.put(orderKey, i);
+            checks.add(new Check(dependentTest, testRun, path, i, orderKey));
+        }
+    }
+
+    /**
+     * The number of distinct orders to verify.
+     */
+    public int size() {
+        return orders.size();
+    }
+
+    /**
+     * Runs the batch, returning whether each dependent test was verified. If pool is null, all orders run on runner.
+     */
+    public Map<DependentTest, Boolean> run(final Runner runner, final RunnerPool pool) {
+        final Map<String, String> runKeys = PLAN_PREFIXES ? planPrefixes() : identityPlan();
+        final Map<String, List<String>> toRun = new LinkedHashMap<>();
+        runKeys.values().forEach(runKey -> toRun.put(runKey, orders.get(runKey)));
+
+        final Map<String, TestRunResult> runResults = pool == null ? runSequentially(runner, toRun) : runConcurrently(pool, toRun);
+
+        final Map<String, TestRunResult> results = new HashMap<>();
+        runKeys.forEach((orderKey, runKey) -> {
+            if (runResults.containsKey(runKey)) {
+                results.put(orderKey, runResults.get(runKey));
+            }
+        });
+
+        final Map<DependentTest, Boolean> verified = new LinkedHashMap<>();
+
+        for (final Check check : checks) {
+            final boolean checkVerified = check.testRun.checkVerification(check.dependentTest.name(),
+                    results.get(check.orderKey), check.path, check.round);
+
+            verified.merge(check.dependentTest, checkVerified, Boolean::logicalAnd);
+        }
+
+        return verified;
+    }
+
+    private Map<String, String> identityPlan() {
+        final Map<String, String> runKeys = new LinkedHashMap<>();
+        orders.keySet().forEach(orderKey -> runKeys.put(orderKey, orderKey));
+        return runKeys;
+    }
+
+    /**
+     * Maps each order to the key of the order whose run will also give its result (see VerificationPlanner).
+     * Orders are only merged with other orders from the same verification round.
+     */
+    private Map<String, String> planPrefixes() {
+        final Map<String, String> runKeys = new LinkedHashMap<>();
+
+        for (int i = 0; i < TestRun.verifyRounds(); i++) {
+            final Map<List<String>, String> keys = new LinkedHashMap<>();
+            for (final Map.Entry<String, List<String>> entry : orders.entrySet()) {
+                if (orderRounds.get(entry.getKey()) == i) {
+                    keys.put(entry.getValue(), entry.getKey());
+                }
+            }
+
+            new VerificationPlanner(keys.keySet()).plan().forEach((order, runOrder) -> runKeys.put(keys.get(order), keys.get(runOrder)));
+        }
+
+        return runKeys;
+    }
+
+    private Map<String, TestRunResult> runSequentially(final Runner runner, final Map<String, List<String>> orders) {
+        final Map<String, TestRunResult> results = new HashMap<>();
+
+        orders.forEach((orderKey, order) -> {
+            try {
+                results.put(orderKey, runner.runList(order).get());
+            } catch (Exception ignored) {}
+        });
+
+        return results;
+    }
+
+    private Map<String, TestRunResult> runConcurrently(final RunnerPool pool, final Map<String, List<String>> orders) {
+        final Map<String, Future<TestRunResult>> futures = new LinkedHashMap<>();
+        orders.forEach((orderKey, order) -> futures.put(orderKey, pool.submit(order)));
+
+        final Map<String, TestRunResult> results = new HashMap<>();
+
+        futures.forEach((orderKey, future) -> {
+            try {
+                results.put(orderKey, future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ignored) {}
+        });
+
+        return results;
+    }
+}
@@ -0,0 +1,63 @@
+package edu.illinois.cs.dt.tools.runner.data;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plans which orders to actually run to get results for a set of pending orders.
+ *
+ * A test's result only depends on the tests that run before it, so running an order also gives the result of the
+ * last test of every pending order that is a prefix of it. The pending orders are put into a trie, and only one
+ * order per leaf of the trie is run.
+ */
+public class VerificationPlanner {
+    private static class Node {
+        private final Map<String, Node> children = new LinkedHashMap<>();
+        private List<String> order = null;
+
+        private Node child(final String test) {
+            return children.computeIfAbsent(test, t -> new Node());
+        }
+    }
+
+    private final Node root = new Node();
+    private final Map<List<String>, Node> terminals = new LinkedHashMap<>();
+
+    public VerificationPlanner(final Collection<List<String>> orders) {
+        for (final List<String> order : orders) {
+            Node node = root;
+
+            for (final String test : order) {
+                node = node.child(test);
+            }
+
+            node.order = order;
+            terminals.put(order, node);
+        }
+    }
+
+    /**
+     * Maps each pending order to the order that should be run in its place: either the order itself,
+     * or a longer pending order that it is a prefix of.
+     */
+    public Map<List<String>, List<String>> plan() {
+        final Map<Node, List<String>> leafOrders = new HashMap<>();
+        final Map<List<String>, List<String>> plan = new LinkedHashMap<>();
+
+        terminals.forEach((order, node) -> plan.put(order, leafOrders.computeIfAbsent(node, VerificationPlanner::leafOrder)));
+
+        return plan;
+    }
+
+    private static List<String> leafOrder(Node node) {
+        while (!node.children.isEmpty()) {
+            node = node.children.values().iterator().next();
+        }
+
+        // Every leaf is the end of some pending order, since nodes are only created for pending orders
+        return node.order;
+    }
+}
@@ -0,0 +1,106 @@
+package edu.illinois.cs.dt.tools.utility;
+
+/**
+ * A hash map from primitive longs (usually hashes) to values, with open addressing, so that lookups do not box the
+ * key or allocate an entry per mapping.
+ */
+public class LongMap<V> {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private Object[] values = new Object[INITIAL_CAPACITY];
+    private int size = 0;
+
+    // 0 marks an empty slot in keys, so the value for the key 0 is kept separately
+    private boolean hasZero = false;
+    private V zeroValue = null;
+
+    public int size() {
+        return size + (hasZero ? 1 : 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(final long key) {
+        if (key == 0) {
+            return zeroValue;
+        }
+
+        final int mask = keys.length - 1;
+        for (int i = slot(key, mask); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+
+        return null;
+    }
+
+    public boolean containsKey(final long key) {
+        if (key == 0) {
+            return hasZero;
+        }
+
+        final int mask = keys.length - 1;
+        for (int i = slot(key, mask); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public void put(final long key, final V value) {
+        if (key == 0) {
+            hasZero = true;
+            zeroValue = value;
+            return;
+        }
+
+        // Keep the table at most half full, so probe sequences stay short
+        if (2 * (size + 1) > keys.length) {
+            resize(keys.length * 2);
+        }
+
+        insert(key, value);
+    }
+
+    private void insert(final long key, final Object value) {
+        final int mask = keys.length - 1;
+        int i = slot(key, mask);
+
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    private void resize(final int capacity) {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+
+        keys = new long[capacity];
+        values = new Object[capacity];
+        size = 0;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int slot(final long key, final int mask) {
+        // Keys may be hashes whose low bits are not well mixed, so mix in the high bits
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
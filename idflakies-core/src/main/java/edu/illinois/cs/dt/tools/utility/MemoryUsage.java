@@ -0,0 +1,62 @@
+package edu.illinois.cs.dt.tools.utility;
+
+import edu.illinois.cs.dt.tools.runner.data.TestIndex;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * The memory used by this JVM (not the JVMs that run the tests) so far, and the time spent collecting garbage,
+ * so that changes to how results are kept in memory can be compared.
+ */
+public class MemoryUsage {
+    private static final double MB = 1024 * 1024;
+
+    public static long usedHeapBytes() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * The sum of the peak usage of each heap pool. Pools peak at different times, so this overestimates the peak of
+     * the whole heap, but never underestimates it.
+     */
+    public static long peakHeapBytes() {
+        long peak = 0;
+
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        return peak;
+    }
+
+    public static long gcCount() {
+        long count = 0;
+
+        for (final GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+        }
+
+        return count;
+    }
+
+    public static long gcMillis() {
+        long millis = 0;
+
+        for (final GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+
+        return millis;
+    }
+
+    public static String report() {
+        return String.format("%.1f MB heap used (at most %.1f MB), %d collections taking %.1f seconds, %d distinct tests",
+                             usedHeapBytes() / MB, peakHeapBytes() / MB, gcCount(), gcMillis() / 1000.0,
+                             TestIndex.getGlobal().size());
+    }
+}
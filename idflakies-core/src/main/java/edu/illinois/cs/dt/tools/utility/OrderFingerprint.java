@@ -0,0 +1,192 @@
+package edu.illinois.cs.dt.tools.utility;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import edu.illinois.cs.dt.tools.runner.data.TestIndex;
+import edu.illinois.cs.dt.tools.runner.data.TestOrder;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A 128-bit fingerprint of an order of tests, to use instead of {@link MD5#hashOrder(List)} when comparing orders.
+ *
+ * Each test name is hashed once per JVM (with Murmur3), and the fingerprint of an order is the Murmur3 x64 128-bit
+ * hash of the sequence of its tests' name hashes, so fingerprinting an order never builds a string. Fingerprints only
+ * depend on the names of the tests, so they can be stored and compared across runs.
+ *
+ * Fingerprints print as 32 hex digits with an "f" in front, so stored fingerprints can be told apart from MD5 hashes.
+ */
+public class OrderFingerprint implements Comparable<OrderFingerprint> {
+    private static final String PREFIX = "f";
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    // Name hashes by test id (see TestIndex), computed when first needed
+    private static long[] nameHashes1 = new long[0];
+    private static long[] nameHashes2 = new long[0];
+    private static boolean[] hashed = new boolean[0];
+
+    public static OrderFingerprint of(final List<String> order) {
+        final TestOrder testOrder = TestOrder.of(order);
+        final Builder builder = new Builder();
+
+        // Take the lock once for the whole order, rather than once per test
+        synchronized (OrderFingerprint.class) {
+            for (int i = 0; i < testOrder.size(); i++) {
+                final int id = testOrder.id(i);
+                ensureHashed(id);
+                builder.add(nameHashes1[id], nameHashes2[id]);
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Reads a fingerprint from {@link #toString()}.
+     */
+    public static OrderFingerprint fromString(final String s) {
+        if (!isFingerprint(s)) {
+            throw new IllegalArgumentException("Not an order fingerprint: " + s);
+        }
+
+        final ByteBuffer bytes = ByteBuffer.wrap(HashCode.fromString(s.substring(PREFIX.length())).asBytes());
+        return new OrderFingerprint(bytes.getLong(), bytes.getLong());
+    }
+
+    /**
+     * Whether the string is a fingerprint, rather than, e.g., an MD5 hash from older results.
+     */
+    public static boolean isFingerprint(final String s) {
+        return s != null && s.length() == PREFIX.length() + 32 && s.startsWith(PREFIX);
+    }
+
+    private static synchronized void ensureHashed(final int id) {
+        if (id >= hashed.length) {
+            final int length = Math.max(id + 1, 2 * hashed.length);
+            nameHashes1 = Arrays.copyOf(nameHashes1, length);
+            nameHashes2 = Arrays.copyOf(nameHashes2, length);
+            hashed = Arrays.copyOf(hashed, length);
+        }
+
+        if (!hashed[id]) {
+            final ByteBuffer hash = ByteBuffer.wrap(
+                    Hashing.murmur3_128().hashUnencodedChars(TestIndex.getGlobal().name(id)).asBytes());
+            nameHashes1[id] = hash.getLong();
+            nameHashes2[id] = hash.getLong();
+            hashed[id] = true;
+        }
+    }
+
+    /**
+     * Builds a fingerprint one test at a time, e.g., to get the fingerprints of every prefix of an order in one pass.
+     */
+    public static class Builder {
+        private long h1 = 0;
+        private long h2 = 0;
+        private long length = 0;
+
+        public Builder add(final String test) {
+            return add(TestIndex.getGlobal().id(test));
+        }
+
+        public Builder add(final int id) {
+            synchronized (OrderFingerprint.class) {
+                ensureHashed(id);
+                return add(nameHashes1[id], nameHashes2[id]);
+            }
+        }
+
+        private Builder add(final long k1, final long k2) {
+            // One block of Murmur3 x64 128-bit
+            h1 ^= Long.rotateLeft(k1 * C1, 31) * C2;
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= Long.rotateLeft(k2 * C2, 33) * C1;
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+
+            length++;
+
+            return this;
+        }
+
+        /**
+         * The fingerprint of the tests added so far. More tests can still be added afterwards.
+         */
+        public OrderFingerprint build() {
+            long f1 = h1 ^ length;
+            long f2 = h2 ^ length;
+
+            f1 += f2;
+            f2 += f1;
+            f1 = fmix(f1);
+            f2 = fmix(f2);
+            f1 += f2;
+            f2 += f1;
+
+            return new OrderFingerprint(f1, f2);
+        }
+
+        private static long fmix(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+
+    private final long hi;
+    private final long lo;
+
+    public OrderFingerprint(final long hi, final long lo) {
+        this.hi = hi;
+        this.lo = lo;
+    }
+
+    public long hi() {
+        return hi;
+    }
+
+    public long lo() {
+        return lo;
+    }
+
+    public byte[] toBytes() {
+        return ByteBuffer.allocate(16).putLong(hi).putLong(lo).array();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        } else if (!(o instanceof OrderFingerprint)) {
+            return false;
+        }
+
+        final OrderFingerprint other = (OrderFingerprint) o;
+        return hi == other.hi && lo == other.lo;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hi ^ lo);
+    }
+
+    @Override
+    public int compareTo(final OrderFingerprint other) {
+        final int cmp = Long.compareUnsigned(hi, other.hi);
+        return cmp != 0 ? cmp : Long.compareUnsigned(lo, other.lo);
+    }
+
+    @Override
+    public String toString() {
+        return PREFIX + HashCode.fromBytes(toBytes()).toString();
+    }
+}
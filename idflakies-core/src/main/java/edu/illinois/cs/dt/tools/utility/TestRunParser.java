@@ -1,9 +1,10 @@
 package edu.illinois.cs.dt.tools.utility;
 
-import com.google.gson.Gson;
 import com.reedoei.eunomia.collections.ListEx;
 import com.reedoei.eunomia.collections.PairStream;
-import com.reedoei.eunomia.io.files.FileUtil;
+import edu.illinois.cs.dt.tools.runner.OutputCapture;
+import edu.illinois.cs.dt.tools.runner.ResultStore;
+import edu.illinois.cs.dt.tools.runner.ResultsFormat;
 import edu.illinois.cs.dt.tools.runner.RunnerPathManager;
 import edu.illinois.cs.testrunner.data.results.TestRunResult;
 
@@ -18,6 +19,11 @@ public class TestRunParser {
     private static ListEx<Path> listFiles(final Path path) throws IOException {
         final ListEx<Path> result = new ListEx<>();
 
+        // Runs kept in a result store may have no results or output directories
+        if (!Files.isDirectory(path)) {
+            return result;
+        }
+
         try (final Stream<Path> stream = Files.list(path)) {
             result.addAll(stream.collect(Collectors.toList()));
         }
@@ -45,12 +51,12 @@ public class TestRunParser {
     }
 
     private Stream<TestRunResult> testRunResult(final Path path) {
+        final Stream<TestRunResult> files;
         try {
-            return listFiles(path.resolve("results")).stream()
-                    .flatMap(FileUtil::safeReadFile)
-                    .flatMap(s -> {
+            files = listFiles(path.resolve("results")).stream()
+                    .flatMap(p -> {
                         try {
-                            return Stream.of(new Gson().fromJson(s, TestRunResult.class));
+                            return Stream.of(ResultsFormat.readTestRunResult(p));
                         } catch (Exception e) {
                             return Stream.empty();
                         }
@@ -58,23 +64,60 @@ public class TestRunParser {
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+
+        return Stream.concat(files, stored(path, (store, id) -> store.result(id).orElse(null)));
     }
 
     private Stream<String> testRunOutput(final Path path) {
+        final Stream<String> files;
+        try {
+            files = listFiles(path.resolve("output")).stream()
+                    .flatMap(p -> {
+                        try {
+                            return Stream.of(OutputCapture.read(p));
+                        } catch (IOException e) {
+                            return Stream.empty();
+                        }
+                    });
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        // Every stored result gets an output (empty if there is none), so that outputs and results line up
+        return Stream.concat(files, stored(path, (store, id) -> store.output(id).orElse("")));
+    }
+
+    private <T> Stream<T> stored(final Path path, final StoreReader<T> reader) {
+        if (!ResultStore.exists(path)) {
+            return Stream.empty();
+        }
+
         try {
-            return listFiles(path.resolve("output")).stream()
-                    .flatMap(FileUtil::safeReadFile);
+            final ResultStore store = ResultStore.open(path);
+
+            return store.ids().stream()
+                    .flatMap(id -> {
+                        try {
+                            final T t = reader.read(store, id);
+                            return t == null ? Stream.empty() : Stream.of(t);
+                        } catch (Exception e) {
+                            return Stream.empty();
+                        }
+                    });
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private interface StoreReader<T> {
+        T read(final ResultStore store, final String id) throws IOException;
+    }
+
     private boolean isTestRun(final Path path) {
         final Path output = path.resolve("output");
         final Path results = path.resolve("results");
 
         return path.getFileName().toString().equals(RunnerPathManager.TEST_RUNS.getFileName().toString()) &&
-               Files.isDirectory(output) &&
-               Files.isDirectory(results);
+               ((Files.isDirectory(output) && Files.isDirectory(results)) || ResultStore.exists(path));
     }
 }
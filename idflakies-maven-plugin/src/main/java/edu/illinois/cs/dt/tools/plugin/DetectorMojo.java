@@ -6,6 +6,7 @@ import com.reedoei.eunomia.collections.ListEx;
 import edu.illinois.cs.dt.tools.detection.MavenDetectorPathManager;
 import edu.illinois.cs.dt.tools.detection.detectors.Detector;
 import edu.illinois.cs.dt.tools.detection.detectors.DetectorFactory;
+import edu.illinois.cs.dt.tools.detection.detectors.ExecutingDetector;
 import edu.illinois.cs.dt.tools.runner.InstrumentingSmartRunner;
 import edu.illinois.cs.dt.tools.utility.ErrorLogger;
 import edu.illinois.cs.dt.tools.utility.GetMavenTestOrder;
@@ -150,7 +151,12 @@ public class DetectorMojo extends AbstractIDFlakiesMojo {
         final int roundNum = Configuration.config().getProperty("dt.randomize.rounds", 20);
 
         final int timeoutRounds;
-        if (hasTimeout) {
+        if (hasTimeout && ExecutingDetector.usesDeadlineScheduler()) {
+            // The detector itself stops once the timeout can not fit another round
+            timeoutRounds = Integer.MAX_VALUE;
+            Logger.getGlobal().log(Level.INFO, "TIMEOUT_VALUE: Using the deadline scheduler, so rounds run until the timeout of " +
+                                               Configuration.config().getProperty("detector.timeout", 6 * 3600.0) + " seconds is used up.");
+        } else if (hasTimeout) {
             final Path timeCsv = PathManager.testTimeLog();
 
             if (Files.isReadable(timeCsv)) {